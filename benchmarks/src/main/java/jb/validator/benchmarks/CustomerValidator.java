@@ -0,0 +1,24 @@
+package jb.validator.benchmarks;
+
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+
+import java.util.Collection;
+import java.util.List;
+
+public class CustomerValidator extends AbstractValidator<Customer> {
+
+    @Override
+    public Collection<Constraint<Customer>> constraintSupplier() {
+        return List.of(
+                Constraint.forField(Customer::getCustomerId).notNull().addName("customerIdNotNull"),
+                Constraint.forField(Customer::getName).suchThatTarget(String::length).isLessOrEqualThan(50).addName("nameLength")
+        );
+    }
+
+    @Override
+    public Class<? extends Throwable> exceptionSupplier() {
+        return IllegalArgumentException.class;
+    }
+
+}
@@ -0,0 +1,33 @@
+package jb.validator.benchmarks;
+
+import java.util.List;
+
+public class Order {
+    private String id;
+    private Integer quantity;
+    private List<Integer> lineQuantities;
+    private Customer customer;
+
+    public Order(String id, Integer quantity, List<Integer> lineQuantities, Customer customer) {
+        this.id = id;
+        this.quantity = quantity;
+        this.lineQuantities = lineQuantities;
+        this.customer = customer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public List<Integer> getLineQuantities() {
+        return lineQuantities;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+}
@@ -0,0 +1,22 @@
+package jb.validator.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory stand-in for a repository, so service-backed constraints are measured without I/O.
+ */
+public class OrderRepositoryStub {
+
+    private final Map<String, Order> ordersById = new HashMap<>();
+
+    public void save(Order order) {
+        ordersById.put(order.getId(), order);
+    }
+
+    public Optional<Order> findById(String id) {
+        return Optional.ofNullable(ordersById.get(id));
+    }
+
+}
@@ -0,0 +1,35 @@
+package jb.validator.benchmarks;
+
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+
+import java.util.Collection;
+import java.util.List;
+
+public class OrderValidator extends AbstractValidator<Order> {
+
+    private final CustomerValidator customerValidator = new CustomerValidator();
+    private final OrderRepositoryStub orderRepository;
+
+    public OrderValidator(OrderRepositoryStub orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public Collection<Constraint<Order>> constraintSupplier() {
+        return List.of(
+                Constraint.forField(Order::getId).notNull().addName("idNotNull"),
+                Constraint.forField(Order::getId).suchThatTarget(String::length).isLessOrEqualThan(10).addName("idLength"),
+                Constraint.forField(Order::getQuantity).suchThatTarget(quantity -> quantity).isGreaterOrEqualThan(1).addName("quantityPositive"),
+                Constraint.forItemsInCollection(Order::getLineQuantities).suchThatTarget(quantity -> quantity).isGreaterOrEqualThan(0).addName("lineQuantitiesNonNegative"),
+                Constraint.forField(Order::getCustomer).noThrowsUsing(customerValidator::validate).addName("customerValid"),
+                Constraint.forField(Order::getId).absentUsing(orderRepository::findById).addName("idNotTaken")
+        );
+    }
+
+    @Override
+    public Class<? extends Throwable> exceptionSupplier() {
+        return IllegalArgumentException.class;
+    }
+
+}
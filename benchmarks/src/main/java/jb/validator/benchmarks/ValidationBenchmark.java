@@ -0,0 +1,102 @@
+package jb.validator.benchmarks;
+
+import jb.validator.exceptions.ValidatorException;
+import jb.validator.models.Constraint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the validation hot paths: whole validators on passing and failing objects, single bound constraints,
+ * constraints on large collections, nested validators and service-backed constraints.
+ * Run with the gc profiler (see BenchmarkRunner) to report the allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"10", "10000"})
+    private int lineCount;
+
+    private OrderValidator orderValidator;
+    private Order passingOrder;
+    private Order failingOrder;
+    private Constraint<Order> quantityBound;
+    private Constraint<Order> lineQuantitiesBound;
+    private Constraint<Order> customerNested;
+    private Constraint<Order> idNotTakenService;
+
+    @Setup
+    public void setup() {
+        OrderRepositoryStub orderRepository = new OrderRepositoryStub();
+        orderValidator = new OrderValidator(orderRepository);
+        List<Integer> lineQuantities = new ArrayList<>(lineCount);
+        for(int i = 0; i < lineCount; i++) {
+            lineQuantities.add(i % 100);
+        }
+        List<Integer> failingLineQuantities = new ArrayList<>(lineQuantities);
+        failingLineQuantities.set(lineCount - 1, -1);
+        passingOrder = new Order("order1", 3, lineQuantities, new Customer("customer1", "Jane Doe"));
+        failingOrder = new Order("takenOrder1", 0, failingLineQuantities, new Customer(null, "Jane Doe"));
+        orderRepository.save(failingOrder);
+
+        CustomerValidator customerValidator = new CustomerValidator();
+        quantityBound = Constraint.forField(Order::getQuantity).suchThatTarget(quantity -> quantity).isGreaterOrEqualThan(1);
+        lineQuantitiesBound = Constraint.forItemsInCollection(Order::getLineQuantities).suchThatTarget(quantity -> quantity).isGreaterOrEqualThan(0);
+        customerNested = Constraint.forField(Order::getCustomer).noThrowsUsing(customerValidator::validate);
+        idNotTakenService = Constraint.forField(Order::getId).absentUsing(orderRepository::findById);
+    }
+
+    @Benchmark
+    public Order validatePassingOrder() {
+        orderValidator.validate(passingOrder);
+        return passingOrder;
+    }
+
+    @Benchmark
+    public Object validateFailingOrder() {
+        try {
+            orderValidator.validate(failingOrder);
+            return failingOrder;
+        } catch (ValidatorException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public String singleFieldBound() {
+        return quantityBound.validateObject(passingOrder);
+    }
+
+    @Benchmark
+    public String largeCollectionBound() {
+        return lineQuantitiesBound.validateObject(passingOrder);
+    }
+
+    @Benchmark
+    public String nestedNoThrowsValidator() {
+        return customerNested.validateObject(passingOrder);
+    }
+
+    @Benchmark
+    public String serviceBackedConstraint() {
+        return idNotTakenService.validateObject(passingOrder);
+    }
+
+}
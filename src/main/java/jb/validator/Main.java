@@ -1,10 +1,142 @@
 package jb.validator;
 
+import jb.validator.batch.BatchValidationRunner;
+import jb.validator.batch.BatchValidationStatistics;
+import jb.validator.constants.RecordFormatEnum;
+import jb.validator.models.AbstractValidator;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Batch validation runner validating all records of a JSONL or CSV file with a given validator.
+ * Usage: --validator <class> --input <file> [--format jsonl|csv] [--threads <count>] [--report <file>]
+ * [--checkpoint <file> [--checkpoint-interval <records>]]
+ * The validator class must extend AbstractValidator and have a no-argument constructor. The report of violations is
+ * written to the report file or to the standard output, the statistics of the run are written to the standard error.
+ * With a checkpoint file (which requires a report file), the progress of the run is checkpointed periodically and a
+ * restarted run resumes from the last checkpoint.
+ * Exits with 0 if all records are valid, 1 if any record is invalid or malformed and 2 on usage errors.
+ */
 public class Main {
 
+	private static final String USAGE = "Usage: --validator <class> --input <file> [--format jsonl|csv] [--threads <count>] [--report <file>] "
+			+ "[--checkpoint <file> [--checkpoint-interval <records>]]";
+
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+
 	public static void main(String[] args) {
+		System.exit(run(args, System.err));
+	}
+
+	static int run(String[] args, PrintStream console) {
+		Map<String, String> options;
+		BatchValidationRunner<?> runner;
+		Path input;
+		int checkpointInterval;
+		try {
+			options = parseOptions(args);
+			input = Path.of(requireOption(options, "input"));
+			RecordFormatEnum recordFormat = options.containsKey("format")
+					? RecordFormatEnum.valueOf(options.get("format").toUpperCase())
+					: RecordFormatEnum.fromFileName(input.getFileName().toString());
+			if(recordFormat == null) {
+				throw new IllegalArgumentException("The format cannot be derived from the input file name, use --format");
+			}
+			int threadCount = options.containsKey("threads")
+					? Integer.parseInt(options.get("threads"))
+					: Runtime.getRuntime().availableProcessors();
+			if(options.containsKey("checkpoint") && !options.containsKey("report")) {
+				throw new IllegalArgumentException("A checkpoint requires a report file, use --report");
+			}
+			checkpointInterval = options.containsKey("checkpoint-interval")
+					? Integer.parseInt(options.get("checkpoint-interval"))
+					: DEFAULT_CHECKPOINT_INTERVAL;
+			runner = createRunner(requireOption(options, "validator"), recordFormat, threadCount);
+		} catch (IllegalArgumentException | ReflectiveOperationException e) {
+			console.println(e.getMessage());
+			console.println(USAGE);
+			return 2;
+		}
+		BatchValidationStatistics statistics;
+		try {
+			if(options.containsKey("checkpoint")) {
+				statistics = runner.run(input, Path.of(options.get("report")), Path.of(options.get("checkpoint")), checkpointInterval);
+			} else {
+				try(Writer report = options.containsKey("report")
+						? Files.newBufferedWriter(Path.of(options.get("report")), StandardCharsets.UTF_8)
+						: new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+					statistics = runner.run(input, report);
+				}
+			}
+		} catch (IOException | IllegalArgumentException | IllegalStateException e) {
+			console.println(String.format("Batch validation failed: %s", e.getMessage()));
+			return 2;
+		}
+		console.println(statistics);
+		statistics.getViolationCountsByConstraint()
+				.forEach((constraintName, count) -> console.println(String.format("  %s: %s", constraintName, count)));
+		return statistics.getInvalidRecordCount() + statistics.getMalformedRecordCount() == 0 ? 0 : 1;
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for(int i = 0; i < args.length; i += 2) {
+			if(!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException(String.format("Invalid argument %s", args[i]));
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+
+	private static String requireOption(Map<String, String> options, String name) {
+		String value = options.get(name);
+		if(value == null) {
+			throw new IllegalArgumentException(String.format("Missing option --%s", name));
+		}
+		return value;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static BatchValidationRunner<?> createRunner(String validatorClassName, RecordFormatEnum recordFormat,
+														 int threadCount) throws ReflectiveOperationException {
+		Class<?> validatorClass = Class.forName(validatorClassName);
+		if(!AbstractValidator.class.isAssignableFrom(validatorClass)) {
+			throw new IllegalArgumentException(String.format("%s does not extend AbstractValidator", validatorClassName));
+		}
+		AbstractValidator validator = (AbstractValidator) validatorClass.getDeclaredConstructor().newInstance();
+		return new BatchValidationRunner(validator, resolveRecordType(validatorClass), recordFormat, threadCount);
+	}
 
+	/**
+	 * Resolves the type of the objects validated by the given validator class from its generic superclass.
+	 */
+	private static Class<?> resolveRecordType(Class<?> validatorClass) {
+		for(Class<?> currentClass = validatorClass; currentClass != null; currentClass = currentClass.getSuperclass()) {
+			Type superclass = currentClass.getGenericSuperclass();
+			if(superclass instanceof ParameterizedType
+					&& ((ParameterizedType) superclass).getRawType() == AbstractValidator.class) {
+				Type recordType = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+				if(recordType instanceof Class) {
+					return (Class<?>) recordType;
+				}
+				if(recordType instanceof ParameterizedType) {
+					return (Class<?>) ((ParameterizedType) recordType).getRawType();
+				}
+			}
+		}
+		throw new IllegalArgumentException(String.format("The validated type of %s cannot be resolved", validatorClass.getName()));
 	}
 
 }
@@ -0,0 +1,111 @@
+package jb.validator.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of a batch validation run, stored as a properties file: the input file, the number of consumed input lines,
+ * the length of the report written so far, the elapsed time and the accumulated counters.
+ * Checkpoints are written to a temporary file which then atomically replaces the previous checkpoint, so a crash
+ * while writing never leaves a partially written checkpoint behind.
+ */
+final class BatchCheckpoint {
+
+    private static final String INPUT_KEY = "input";
+    private static final String CONSUMED_LINE_COUNT_KEY = "consumedLineCount";
+    private static final String REPORT_LENGTH_KEY = "reportLength";
+    private static final String ELAPSED_NANOS_KEY = "elapsedNanos";
+
+    private final String inputName;
+    private final long consumedLineCount;
+    private final long reportLength;
+    private final long elapsedNanos;
+    private final BatchValidationCounters counters;
+
+    BatchCheckpoint(String inputName, long consumedLineCount, long reportLength, long elapsedNanos,
+                    BatchValidationCounters counters) {
+        this.inputName = inputName;
+        this.consumedLineCount = consumedLineCount;
+        this.reportLength = reportLength;
+        this.elapsedNanos = elapsedNanos;
+        this.counters = counters;
+    }
+
+    /**
+     * @return the checkpoint stored in the given file, or null if the file does not exist.
+     * @throws IllegalArgumentException if the file is not a valid checkpoint.
+     */
+    static BatchCheckpoint load(Path checkpointFile) throws IOException {
+        if(!Files.exists(checkpointFile)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try(Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String inputName = properties.getProperty(INPUT_KEY);
+        if(inputName == null) {
+            throw new IllegalArgumentException(String.format("Checkpoint %s does not name its input", checkpointFile));
+        }
+        return new BatchCheckpoint(inputName, getLong(properties, CONSUMED_LINE_COUNT_KEY), getLong(properties, REPORT_LENGTH_KEY),
+                getLong(properties, ELAPSED_NANOS_KEY), BatchValidationCounters.loadFrom(properties));
+    }
+
+    /**
+     * Writes this checkpoint to a temporary file next to the given file and moves it atomically to the given file.
+     */
+    void store(Path checkpointFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(INPUT_KEY, inputName);
+        properties.setProperty(CONSUMED_LINE_COUNT_KEY, Long.toString(consumedLineCount));
+        properties.setProperty(REPORT_LENGTH_KEY, Long.toString(reportLength));
+        properties.setProperty(ELAPSED_NANOS_KEY, Long.toString(elapsedNanos));
+        counters.storeTo(properties);
+        Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try(Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Batch validation checkpoint");
+        }
+        try {
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static long getLong(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid checkpoint value %s for %s", value, key));
+        }
+    }
+
+    String getInputName() {
+        return inputName;
+    }
+
+    long getConsumedLineCount() {
+        return consumedLineCount;
+    }
+
+    long getReportLength() {
+        return reportLength;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    BatchValidationCounters getCounters() {
+        return counters;
+    }
+
+}
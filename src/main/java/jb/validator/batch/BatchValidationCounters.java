@@ -0,0 +1,85 @@
+package jb.validator.batch;
+
+import jb.validator.models.ConstraintViolation;
+import jb.validator.models.ValidationResult;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Mutable counters accumulated by a batch validation run. Counters are only updated by the thread writing the report
+ * and are stored in checkpoints of the run.
+ */
+final class BatchValidationCounters {
+
+    private long recordCount;
+    private long invalidRecordCount;
+    private long malformedRecordCount;
+    private long violationCount;
+    private final Map<String, Long> violationCountsByConstraint = new HashMap<>();
+
+    private static final String RECORD_COUNT_KEY = "recordCount";
+    private static final String INVALID_RECORD_COUNT_KEY = "invalidRecordCount";
+    private static final String MALFORMED_RECORD_COUNT_KEY = "malformedRecordCount";
+    private static final String VIOLATION_COUNT_KEY = "violationCount";
+    private static final String VIOLATION_COUNT_BY_CONSTRAINT_KEY_PREFIX = "violationCount.";
+
+    /**
+     * @return counters continuing the counts stored in the given properties (see this.storeTo(Properties)).
+     * @throws IllegalArgumentException if a count is missing or not a number.
+     */
+    static BatchValidationCounters loadFrom(Properties properties) {
+        BatchValidationCounters counters = new BatchValidationCounters();
+        counters.recordCount = BatchCheckpoint.getLong(properties, RECORD_COUNT_KEY);
+        counters.invalidRecordCount = BatchCheckpoint.getLong(properties, INVALID_RECORD_COUNT_KEY);
+        counters.malformedRecordCount = BatchCheckpoint.getLong(properties, MALFORMED_RECORD_COUNT_KEY);
+        counters.violationCount = BatchCheckpoint.getLong(properties, VIOLATION_COUNT_KEY);
+        for(String key : properties.stringPropertyNames()) {
+            if(key.startsWith(VIOLATION_COUNT_BY_CONSTRAINT_KEY_PREFIX)) {
+                counters.violationCountsByConstraint.put(key.substring(VIOLATION_COUNT_BY_CONSTRAINT_KEY_PREFIX.length()),
+                        BatchCheckpoint.getLong(properties, key));
+            }
+        }
+        return counters;
+    }
+
+    void storeTo(Properties properties) {
+        properties.setProperty(RECORD_COUNT_KEY, Long.toString(recordCount));
+        properties.setProperty(INVALID_RECORD_COUNT_KEY, Long.toString(invalidRecordCount));
+        properties.setProperty(MALFORMED_RECORD_COUNT_KEY, Long.toString(malformedRecordCount));
+        properties.setProperty(VIOLATION_COUNT_KEY, Long.toString(violationCount));
+        violationCountsByConstraint.forEach((constraintName, count) ->
+                properties.setProperty(VIOLATION_COUNT_BY_CONSTRAINT_KEY_PREFIX + constraintName, Long.toString(count)));
+    }
+
+    void countValidationResult(ValidationResult<?> validationResult) {
+        recordCount++;
+        if(validationResult.isValid()) {
+            return;
+        }
+        invalidRecordCount++;
+        List<? extends ConstraintViolation<?>> violations = validationResult.getViolations();
+        violationCount += violations.size();
+        for(ConstraintViolation<?> violation : violations) {
+            violationCountsByConstraint.merge(violation.getConstraintName(), 1L, Long::sum);
+        }
+    }
+
+    void countMalformedRecord() {
+        recordCount++;
+        malformedRecordCount++;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    BatchValidationStatistics toStatistics(Duration elapsedTime) {
+        return new BatchValidationStatistics(recordCount, invalidRecordCount, malformedRecordCount, violationCount,
+                violationCountsByConstraint, elapsedTime);
+    }
+
+}
@@ -0,0 +1,283 @@
+package jb.validator.batch;
+
+import jb.validator.constants.RecordFormatEnum;
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.ConstraintViolation;
+import jb.validator.models.ValidationResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates all records of a JSONL or CSV file and writes a report of the violations found.
+ * Lines are read sequentially through a large buffer, while parsing, mapping and validating the records is distributed
+ * across a pool of worker threads. At most a fixed number of records per thread are in flight, so memory stays bounded
+ * for files of any size. The report is written in record order with one tab separated line per violation:
+ * record index, constraint path, violation kind and message. Records that cannot be parsed are reported with the kind
+ * MALFORMED. Exceptions thrown by the validator abort the run.
+ * Long runs may be checkpointed to a file, so a crashed or aborted run can be resumed where it stopped.
+ * @param <CT> type of the validated records.
+ */
+public final class BatchValidationRunner<CT> {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int IN_FLIGHT_RECORDS_PER_THREAD = 64;
+    private static final String MALFORMED_KIND = "MALFORMED";
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final AbstractValidator<CT> validator;
+    private final RecordMapper<CT> recordMapper;
+    private final RecordFormatEnum recordFormat;
+    private final int threadCount;
+
+    /**
+     * @param validator validator validating the records.
+     * @param recordType type the records are mapped to (see this class' documentation of the supported field types).
+     * @param recordFormat format of the read files.
+     * @param threadCount number of worker threads. With a single thread, records are validated on the calling thread.
+     */
+    public BatchValidationRunner(AbstractValidator<CT> validator, Class<CT> recordType, RecordFormatEnum recordFormat,
+                                 int threadCount) {
+        if(threadCount < 1) {
+            throw new IllegalArgumentException(String.format("threadCount must be positive but was %s", threadCount));
+        }
+        this.validator = Objects.requireNonNull(validator);
+        this.recordMapper = new RecordMapper<>(Objects.requireNonNull(recordType));
+        this.recordFormat = Objects.requireNonNull(recordFormat);
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Validates all records of the given file.
+     * @param input file of records. Blank lines are skipped.
+     * @param report writer the violations report is written to. The writer is flushed but not closed.
+     * @return the statistics of the run.
+     * @throws IOException if reading the input or writing the report fails.
+     */
+    public BatchValidationStatistics run(Path input, Writer report) throws IOException {
+        long startNanos = System.nanoTime();
+        BatchValidationCounters counters = new BatchValidationCounters();
+        validateRecords(input, 0, report, counters, consumedLineCount -> {});
+        report.flush();
+        return counters.toStatistics(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Validates all records of the given file, writing a checkpoint after every checkpointInterval records. If the
+     * given checkpoint file exists, the run resumes after the last checkpointed record: the report is truncated to its
+     * length at the time of the checkpoint, already validated records are skipped and the counters of the checkpoint
+     * are continued. The report is appended incrementally and each checkpoint is written only after the report has
+     * been forced to disk, so a crashed run never loses checkpointed results. The checkpoint file is deleted after all
+     * records have been validated.
+     * @param input file of records. Blank lines are skipped.
+     * @param report file the violations report is written to.
+     * @param checkpoint file the checkpoint is written to and resumed from.
+     * @param checkpointInterval number of records validated between two checkpoints.
+     * @return the statistics of the whole run, including the records validated before resuming.
+     * @throws IOException if reading the input, writing the report or reading or writing the checkpoint fails.
+     * @throws IllegalStateException if the checkpoint belongs to a run over a different input file.
+     */
+    public BatchValidationStatistics run(Path input, Path report, Path checkpoint, int checkpointInterval) throws IOException {
+        if(checkpointInterval < 1) {
+            throw new IllegalArgumentException(String.format("checkpointInterval must be positive but was %s", checkpointInterval));
+        }
+        long startNanos = System.nanoTime();
+        String inputName = input.toAbsolutePath().normalize().toString();
+        BatchCheckpoint resumedCheckpoint = BatchCheckpoint.load(checkpoint);
+        if(resumedCheckpoint != null && !resumedCheckpoint.getInputName().equals(inputName)) {
+            throw new IllegalStateException(String.format("Checkpoint %s belongs to input %s", checkpoint, resumedCheckpoint.getInputName()));
+        }
+        BatchValidationCounters counters = resumedCheckpoint == null ? new BatchValidationCounters() : resumedCheckpoint.getCounters();
+        long previousElapsedNanos = resumedCheckpoint == null ? 0 : resumedCheckpoint.getElapsedNanos();
+        try(FileChannel reportChannel = FileChannel.open(report, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long reportLength = resumedCheckpoint == null ? 0 : resumedCheckpoint.getReportLength();
+            reportChannel.truncate(reportLength);
+            reportChannel.position(reportLength);
+            Writer reportWriter = Channels.newWriter(reportChannel, StandardCharsets.UTF_8.newEncoder(), READ_BUFFER_SIZE);
+            long[] nextCheckpointRecordCount = {counters.getRecordCount() + checkpointInterval};
+            validateRecords(input, resumedCheckpoint == null ? 0 : resumedCheckpoint.getConsumedLineCount(), reportWriter, counters,
+                    consumedLineCount -> {
+                        if(counters.getRecordCount() >= nextCheckpointRecordCount[0]) {
+                            reportWriter.flush();
+                            reportChannel.force(false);
+                            new BatchCheckpoint(inputName, consumedLineCount, reportChannel.position(),
+                                    previousElapsedNanos + System.nanoTime() - startNanos, counters).store(checkpoint);
+                            nextCheckpointRecordCount[0] = counters.getRecordCount() + checkpointInterval;
+                        }
+                    });
+            reportWriter.flush();
+            reportChannel.force(false);
+        }
+        Files.deleteIfExists(checkpoint);
+        return counters.toStatistics(Duration.ofNanos(previousElapsedNanos + System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Validates the records of the given file in order, skipping the given number of lines (including the header).
+     * The given listener is called after the outcome of each record has been written and counted.
+     */
+    private void validateRecords(Path input, long skippedLineCount, Writer report, BatchValidationCounters counters,
+                                 OutcomeListener outcomeListener) throws IOException {
+        ExecutorService workerPool = threadCount == 1 ? null : Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "validator-batch-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int maxInFlight = workerPool == null ? 1 : threadCount * IN_FLIGHT_RECORDS_PER_THREAD;
+        ArrayDeque<CompletableFuture<RecordOutcome>> pendingOutcomes = new ArrayDeque<>(maxInFlight);
+        try(BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            long lineCount = 0;
+            List<String> header = null;
+            long recordIndex = counters.getRecordCount();
+            String line;
+            while((line = reader.readLine()) != null) {
+                lineCount++;
+                if(line.isBlank()) {
+                    continue;
+                }
+                if(header == null && recordFormat == RecordFormatEnum.CSV) {
+                    header = CsvParser.parseLine(line);
+                    continue;
+                }
+                if(lineCount <= skippedLineCount) {
+                    continue;
+                }
+                if(pendingOutcomes.size() == maxInFlight) {
+                    writeOutcome(await(pendingOutcomes.poll()), report, counters, outcomeListener);
+                }
+                long currentRecordIndex = recordIndex++;
+                long currentLineCount = lineCount;
+                String currentLine = line;
+                List<String> currentHeader = header;
+                pendingOutcomes.add(workerPool == null
+                        ? CompletableFuture.completedFuture(process(currentRecordIndex, currentLineCount, currentLine, currentHeader))
+                        : CompletableFuture.supplyAsync(() -> process(currentRecordIndex, currentLineCount, currentLine, currentHeader), workerPool));
+            }
+            while(!pendingOutcomes.isEmpty()) {
+                writeOutcome(await(pendingOutcomes.poll()), report, counters, outcomeListener);
+            }
+        } finally {
+            if(workerPool != null) {
+                workerPool.shutdownNow();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RecordOutcome process(long recordIndex, long lineCount, String line, List<String> header) {
+        CT record;
+        try {
+            Object parsedRecord;
+            if(header == null) {
+                parsedRecord = JsonParser.parse(line);
+                if(!(parsedRecord instanceof Map)) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+            } else {
+                parsedRecord = toColumnMap(header, CsvParser.parseLine(line));
+            }
+            record = recordMapper.map((Map<String, ?>) parsedRecord);
+        } catch (IllegalArgumentException e) {
+            return new RecordOutcome(recordIndex, lineCount, null, e.getMessage());
+        }
+        return new RecordOutcome(recordIndex, lineCount, validator.validateToResult(record), null);
+    }
+
+    private static Map<String, String> toColumnMap(List<String> header, List<String> values) {
+        if(values.size() != header.size()) {
+            throw new IllegalArgumentException(String.format("Expected %s values but found %s", header.size(), values.size()));
+        }
+        Map<String, String> columns = new HashMap<>();
+        for(int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i), values.get(i));
+        }
+        return columns;
+    }
+
+    private static RecordOutcome await(CompletableFuture<RecordOutcome> pendingOutcome) {
+        try {
+            return pendingOutcome.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void writeOutcome(RecordOutcome outcome, Writer report, BatchValidationCounters counters,
+                                     OutcomeListener outcomeListener) throws IOException {
+        if(outcome.validationResult == null) {
+            counters.countMalformedRecord();
+            writeReportLine(report, outcome.recordIndex, "-", MALFORMED_KIND, outcome.errorMessage);
+        } else {
+            counters.countValidationResult(outcome.validationResult);
+            for(ConstraintViolation<?> violation : outcome.validationResult.getViolations()) {
+                writeReportLine(report, outcome.recordIndex, violation.getPath(), violation.getViolationKind().name(), violation.getMessage());
+            }
+        }
+        outcomeListener.outcomeWritten(outcome.lineCount);
+    }
+
+    private static void writeReportLine(Writer report, long recordIndex, String path, String kind, String message) throws IOException {
+        report.write(Long.toString(recordIndex));
+        report.write('\t');
+        report.write(path);
+        report.write('\t');
+        report.write(kind);
+        report.write('\t');
+        report.write(String.valueOf(message).replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+        report.write('\n');
+    }
+
+    @FunctionalInterface
+    private interface OutcomeListener {
+
+        /**
+         * @param consumedLineCount number of lines of the input consumed up to and including the record of the outcome.
+         */
+        void outcomeWritten(long consumedLineCount) throws IOException;
+
+    }
+
+    private static final class RecordOutcome {
+
+        private final long recordIndex;
+        private final long lineCount;
+        private final ValidationResult<?> validationResult;
+        private final String errorMessage;
+
+        private RecordOutcome(long recordIndex, long lineCount, ValidationResult<?> validationResult, String errorMessage) {
+            this.recordIndex = recordIndex;
+            this.lineCount = lineCount;
+            this.validationResult = validationResult;
+            this.errorMessage = errorMessage;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package jb.validator.batch;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Immutable summary of a batch validation run.
+ */
+public final class BatchValidationStatistics {
+
+    private final long recordCount;
+    private final long invalidRecordCount;
+    private final long malformedRecordCount;
+    private final long violationCount;
+    private final Map<String, Long> violationCountsByConstraint;
+    private final Duration elapsedTime;
+
+    BatchValidationStatistics(long recordCount, long invalidRecordCount, long malformedRecordCount, long violationCount,
+                              Map<String, Long> violationCountsByConstraint, Duration elapsedTime) {
+        this.recordCount = recordCount;
+        this.invalidRecordCount = invalidRecordCount;
+        this.malformedRecordCount = malformedRecordCount;
+        this.violationCount = violationCount;
+        this.violationCountsByConstraint = Map.copyOf(violationCountsByConstraint);
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * @return number of records read, including malformed records.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return number of records violating at least one constraint.
+     */
+    public long getInvalidRecordCount() {
+        return invalidRecordCount;
+    }
+
+    /**
+     * @return number of records that could not be parsed or mapped to the type of the validated objects.
+     */
+    public long getMalformedRecordCount() {
+        return malformedRecordCount;
+    }
+
+    /**
+     * @return number of violated constraints over all records.
+     */
+    public long getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * @return number of violations per constraint name.
+     */
+    public Map<String, Long> getViolationCountsByConstraint() {
+        return violationCountsByConstraint;
+    }
+
+    public Duration getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return number of records processed per second of elapsed time.
+     */
+    public double getRecordsPerSecond() {
+        long elapsedNanos = elapsedTime.toNanos();
+        return elapsedNanos == 0 ? 0.0 : recordCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchValidationStatistics[records: %s, invalid: %s, malformed: %s, violations: %s, elapsed: %s ms, records/s: %.1f]",
+                recordCount, invalidRecordCount, malformedRecordCount, violationCount, elapsedTime.toMillis(), getRecordsPerSecond());
+    }
+
+}
@@ -0,0 +1,54 @@
+package jb.validator.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal parser for single lines of comma separated values. Values may be enclosed in double quotes, in which case
+ * they may contain commas and escaped (doubled) double quotes. Empty unquoted values are parsed to null.
+ */
+final class CsvParser {
+
+    private CsvParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if a quoted value is not terminated.
+     */
+    static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        int position = 0;
+        while(true) {
+            if(position < line.length() && line.charAt(position) == '"') {
+                StringBuilder value = new StringBuilder();
+                position++;
+                while(true) {
+                    int quote = line.indexOf('"', position);
+                    if(quote < 0) {
+                        throw new IllegalArgumentException(String.format("Unterminated quoted value at position %s", position));
+                    }
+                    value.append(line, position, quote);
+                    position = quote + 1;
+                    if(position < line.length() && line.charAt(position) == '"') {
+                        value.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                values.add(value.toString());
+                int comma = line.indexOf(',', position);
+                position = comma < 0 ? line.length() + 1 : comma + 1;
+            } else {
+                int comma = line.indexOf(',', position);
+                int end = comma < 0 ? line.length() : comma;
+                values.add(end == position ? null : line.substring(position, end));
+                position = end + 1;
+            }
+            if(position > line.length()) {
+                return values;
+            }
+        }
+    }
+
+}
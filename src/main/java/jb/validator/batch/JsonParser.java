@@ -0,0 +1,206 @@
+package jb.validator.batch;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal parser for a single JSON value. Objects are parsed to maps, arrays to lists and numbers to BigDecimals.
+ */
+final class JsonParser {
+
+    private final String json;
+    private int position;
+
+    private JsonParser(String json) {
+        this.json = json;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the given string is not a single valid JSON value.
+     */
+    static Object parse(String json) {
+        JsonParser parser = new JsonParser(json);
+        Object value = parser.parseValue();
+        parser.skipWhitespace();
+        if(parser.position < json.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    private Object parseValue() {
+        skipWhitespace();
+        if(position >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = json.charAt(position);
+        switch (c) {
+            case '{':
+                return parseObject();
+            case '[':
+                return parseArray();
+            case '"':
+                return parseString();
+            case 't':
+                return parseLiteral("true", Boolean.TRUE);
+            case 'f':
+                return parseLiteral("false", Boolean.FALSE);
+            case 'n':
+                return parseLiteral("null", null);
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')) {
+                    return parseNumber();
+                }
+                throw error(String.format("Unexpected character '%s'", c));
+        }
+    }
+
+    private Map<String, Object> parseObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if(tryConsume('}')) {
+            return object;
+        }
+        do {
+            skipWhitespace();
+            if(position >= json.length() || json.charAt(position) != '"') {
+                throw error("Expected a member name");
+            }
+            String name = parseString();
+            skipWhitespace();
+            expect(':');
+            object.put(name, parseValue());
+            skipWhitespace();
+        } while(tryConsume(','));
+        expect('}');
+        return object;
+    }
+
+    private List<Object> parseArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if(tryConsume(']')) {
+            return array;
+        }
+        do {
+            array.add(parseValue());
+            skipWhitespace();
+        } while(tryConsume(','));
+        expect(']');
+        return array;
+    }
+
+    private String parseString() {
+        position++;
+        StringBuilder builder = null;
+        int start = position;
+        while(position < json.length()) {
+            char c = json.charAt(position);
+            if(c == '"') {
+                String value = builder == null
+                        ? json.substring(start, position)
+                        : builder.append(json, start, position).toString();
+                position++;
+                return value;
+            }
+            if(c == '\\') {
+                if(builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(json, start, position);
+                builder.append(parseEscape());
+                start = position;
+            } else {
+                position++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private char parseEscape() {
+        if(position + 1 >= json.length()) {
+            throw error("Unterminated escape sequence");
+        }
+        char c = json.charAt(position + 1);
+        position += 2;
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if(position + 4 > json.length()) {
+                    throw error("Invalid unicode escape");
+                }
+                try {
+                    char unicode = (char) Integer.parseInt(json.substring(position, position + 4), 16);
+                    position += 4;
+                    return unicode;
+                } catch (NumberFormatException e) {
+                    throw error("Invalid unicode escape");
+                }
+            default:
+                throw error(String.format("Invalid escape character '%s'", c));
+        }
+    }
+
+    private BigDecimal parseNumber() {
+        int start = position;
+        while(position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return new BigDecimal(json.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    private Object parseLiteral(String literal, Object value) {
+        if(!json.startsWith(literal, position)) {
+            throw error("Invalid literal");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while(position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean tryConsume(char c) {
+        if(position < json.length() && json.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if(!tryConsume(c)) {
+            throw error(String.format("Expected '%s'", c));
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at position %s", message, position));
+    }
+
+}
@@ -0,0 +1,185 @@
+package jb.validator.batch;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps parsed records (maps from field names to values) to instances of a record class. Instances are created with the
+ * no-argument constructor of the class and values are assigned to its non-static fields by name, including the fields
+ * of its superclasses. Values are converted to the declared field types: strings, numbers, booleans, enums,
+ * collections (of any of these types) and nested objects (from nested maps) are supported. Unknown names are ignored.
+ * Mappers are thread safe.
+ * @param <CT> type of the mapped records.
+ */
+final class RecordMapper<CT> {
+
+    private final Class<CT> recordType;
+    private final Map<Class<?>, Map<String, Field>> fieldsByType = new ConcurrentHashMap<>();
+
+    RecordMapper(Class<CT> recordType) {
+        this.recordType = recordType;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value cannot be converted to the type of its field.
+     */
+    CT map(Map<String, ?> values) {
+        return mapObject(recordType, values);
+    }
+
+    private <T> T mapObject(Class<T> type, Map<String, ?> values) {
+        T instance = newInstance(type);
+        Map<String, Field> fields = fieldsByType.computeIfAbsent(type, RecordMapper::collectFields);
+        for(Map.Entry<String, ?> entry : values.entrySet()) {
+            Field field = fields.get(entry.getKey());
+            if(field == null || entry.getValue() == null) {
+                continue;
+            }
+            try {
+                field.set(instance, convert(entry.getValue(), field.getGenericType()));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(String.format("Field %s of %s is not accessible", field.getName(), type.getName()), e);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Invalid value for field %s: %s", field.getName(), e.getMessage()), e);
+            }
+        }
+        return instance;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object convert(Object value, Type type) {
+        Class<?> rawType = toRawType(type);
+        if(rawType == String.class) {
+            if(value instanceof Map || value instanceof List) {
+                throw new IllegalArgumentException("Expected a string");
+            }
+            return value.toString();
+        }
+        if(rawType == boolean.class || rawType == Boolean.class) {
+            if(value instanceof Boolean) {
+                return value;
+            }
+            String string = value.toString().trim();
+            if(string.equalsIgnoreCase("true") || string.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(string);
+            }
+            throw new IllegalArgumentException(String.format("Expected a boolean but was %s", value));
+        }
+        if(rawType.isPrimitive() || Number.class.isAssignableFrom(rawType)) {
+            return convertNumber(toBigDecimal(value), rawType);
+        }
+        if(rawType.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) rawType, value.toString().trim());
+        }
+        if(Collection.class.isAssignableFrom(rawType)) {
+            if(!(value instanceof List)) {
+                throw new IllegalArgumentException("Expected an array");
+            }
+            Type itemType = type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[0] : Object.class;
+            Collection<Object> collection = Set.class.isAssignableFrom(rawType) ? new LinkedHashSet<>() : new ArrayList<>();
+            for(Object item : (List<?>) value) {
+                collection.add(item == null ? null : convert(item, itemType));
+            }
+            return collection;
+        }
+        if(rawType == Object.class) {
+            return value;
+        }
+        if(!(value instanceof Map)) {
+            throw new IllegalArgumentException(String.format("Expected an object of type %s", rawType.getSimpleName()));
+        }
+        return mapObject(rawType, (Map<String, ?>) value);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if(value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Expected a number but was %s", value));
+        }
+    }
+
+    private static Object convertNumber(BigDecimal number, Class<?> type) {
+        try {
+            if(type == int.class || type == Integer.class) {
+                return number.intValueExact();
+            }
+            if(type == long.class || type == Long.class) {
+                return number.longValueExact();
+            }
+            if(type == short.class || type == Short.class) {
+                return number.shortValueExact();
+            }
+            if(type == byte.class || type == Byte.class) {
+                return number.byteValueExact();
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(String.format("%s is out of the range of %s", number, type.getSimpleName()));
+        }
+        if(type == double.class || type == Double.class) {
+            return number.doubleValue();
+        }
+        if(type == float.class || type == Float.class) {
+            return number.floatValue();
+        }
+        if(type == BigInteger.class) {
+            return number.toBigInteger();
+        }
+        if(type == BigDecimal.class || type == Number.class) {
+            return number;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported field type %s", type.getSimpleName()));
+    }
+
+    private static Class<?> toRawType(Type type) {
+        if(type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if(type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
+    }
+
+    private static <T> T newInstance(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("%s cannot be instantiated with a no-argument constructor", type.getName()), e);
+        }
+    }
+
+    private static Map<String, Field> collectFields(Class<?> type) {
+        Map<String, Field> fields = new HashMap<>();
+        for(Class<?> currentType = type; currentType != null && currentType != Object.class; currentType = currentType.getSuperclass()) {
+            for(Field field : currentType.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+                if(fields.putIfAbsent(field.getName(), field) == null) {
+                    field.setAccessible(true);
+                }
+            }
+        }
+        return fields;
+    }
+
+}
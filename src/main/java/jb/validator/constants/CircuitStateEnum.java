@@ -0,0 +1,13 @@
+package jb.validator.constants;
+
+/**
+ * State of a circuit breaker protecting a service function.
+ */
+public enum CircuitStateEnum {
+    /** Calls are passed to the service function, while failures are counted. */
+    CLOSED,
+    /** Calls are rejected without invoking the service function. */
+    OPEN,
+    /** A limited number of trial calls is passed to the service function to decide whether to close again. */
+    HALF_OPEN
+}
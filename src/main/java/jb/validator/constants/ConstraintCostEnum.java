@@ -0,0 +1,30 @@
+package jb.validator.constants;
+
+/**
+ * Estimated evaluation cost class of a constraint. The constants are declared in ascending order of cost, so a
+ * validation plan executes constraints of cheaper classes first.
+ * The enum constant holds a rough relative cost, which is used to weigh the cost of a constraint against its observed
+ * failure rate when the execution order is adapted.
+ */
+public enum ConstraintCostEnum {
+    /** Checks on a single field value or a value derived from it (not-null and bound constraints). */
+    FIELD(1),
+    /** Checks scanning every item of a collection field. */
+    COLLECTION(4),
+    /** Constraints with user defined validation functions whose cost is unknown. */
+    CUSTOM(4),
+    /** Constraints delegating to another consumer, usually a nested validator. */
+    NESTED(16),
+    /** Constraints calling service functions, e.g. repository lookups. */
+    SERVICE(64);
+
+    private final int relativeCost;
+
+    ConstraintCostEnum(int relativeCost) {
+        this.relativeCost = relativeCost;
+    }
+
+    public int getRelativeCost() {
+        return relativeCost;
+    }
+}
@@ -1,6 +1,7 @@
 package jb.validator.constants;
 
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 
 /**
  * Type of the constraint "sign".
@@ -8,9 +9,9 @@ import java.util.function.Function;
  *  "assert that MAXIMUM length of string s is 10"
  *  translates to something like
  *  assert s.length() < 10;
- * The enum constant holds information about the "sign" and the respective Function, evaluating
+ * The enum constant holds information about the "sign" and the respective predicate, evaluating
  * the expression. The evaluation states if the bound is violated. Hence, evaluating to "true" means, that the bound
- * is broken.
+ * is broken. The predicate operates on the primitive result of compareTo, so evaluating it does not box.
  */
 public enum ContentConstraintBoundTypeEnum {
     MIN("greater than or equal to", x -> x <= 0),
@@ -20,17 +21,30 @@ public enum ContentConstraintBoundTypeEnum {
     EXACT("equal to", x -> x != 0);
 
     private final String boundAssertionString;
+    private final IntPredicate isBoundBrokenPredicate;
     private final Function<Integer, Boolean> isBoundBrokenFunction;
 
-    ContentConstraintBoundTypeEnum(String boundAssertionString, Function<Integer, Boolean> isBoundBrokenFunction) {
+    ContentConstraintBoundTypeEnum(String boundAssertionString, IntPredicate isBoundBrokenPredicate) {
         this.boundAssertionString = boundAssertionString;
-        this.isBoundBrokenFunction = isBoundBrokenFunction;
+        this.isBoundBrokenPredicate = isBoundBrokenPredicate;
+        this.isBoundBrokenFunction = isBoundBrokenPredicate::test;
     }
 
     public String getBoundAssertionString() {
         return boundAssertionString;
     }
 
+    /**
+     * @param comparisonResult result of comparing the target value to the bound value (targetValue.compareTo(boundValue)).
+     * @return true if the bound is broken.
+     */
+    public boolean isBoundBroken(int comparisonResult) {
+        return isBoundBrokenPredicate.test(comparisonResult);
+    }
+
+    /**
+     * @return the boxing variant of this.isBoundBroken(int).
+     */
     public Function<Integer, Boolean> getIsBoundBrokenFunction() {
         return isBoundBrokenFunction;
     }
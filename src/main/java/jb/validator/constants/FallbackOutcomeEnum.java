@@ -0,0 +1,13 @@
+package jb.validator.constants;
+
+/**
+ * Outcome of a constraint whose evaluation could not be completed, e.g. since it exceeded its time budget.
+ */
+public enum FallbackOutcomeEnum {
+    /** The constraint is reported as violated. */
+    VIOLATION,
+    /** The constraint is treated as satisfied. */
+    PASS,
+    /** The constraint is reported as undecided by a violation of kind ViolationKindEnum.INDETERMINATE. */
+    INDETERMINATE
+}
@@ -0,0 +1,25 @@
+package jb.validator.constants;
+
+/**
+ * Format of a file of records read by a batch validation run.
+ */
+public enum RecordFormatEnum {
+    /** One JSON object per line. */
+    JSONL,
+    /** Comma separated values with a header line naming the fields of the records. */
+    CSV;
+
+    /**
+     * @return the format matching the extension of the given file name, or null if the extension is unknown.
+     */
+    public static RecordFormatEnum fromFileName(String fileName) {
+        String lowerCaseFileName = fileName.toLowerCase();
+        if(lowerCaseFileName.endsWith(".jsonl") || lowerCaseFileName.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        if(lowerCaseFileName.endsWith(".csv")) {
+            return CSV;
+        }
+        return null;
+    }
+}
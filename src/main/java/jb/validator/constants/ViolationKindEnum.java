@@ -0,0 +1,32 @@
+package jb.validator.constants;
+
+/**
+ * Kind of a constraint violation, derived from the type of constraint that was violated.
+ * This allows callers to route or count failures without inspecting the rendered violation message.
+ */
+public enum ViolationKindEnum {
+    /** A required field value or collection item was null. */
+    NULL_VALUE,
+    /** A target value broke the bound of a bound-constraint. */
+    BOUND_VIOLATED,
+    /** A service function did not find a data object that was required to exist. */
+    DATA_ABSENT,
+    /** A service function found a data object that was required to be absent. */
+    DATA_PRESENT,
+    /** A service function returned an empty collection. */
+    COLLECTION_EMPTY,
+    /** A service function returned a non-empty collection. */
+    COLLECTION_NOT_EMPTY,
+    /** A consumer (usually a nested validator) threw an exception. */
+    EXCEPTION_THROWN,
+    /** The validation of a nested object with another validator failed. */
+    NESTED_VIOLATED,
+    /** A constraint created with a custom validation function was violated. */
+    CUSTOM,
+    /** The evaluation of a constraint exceeded its time budget and was configured to count as violated. */
+    TIMED_OUT,
+    /** The evaluation of a constraint failed with an exception (e.g. an unavailable service) and was configured to count as violated. */
+    EVALUATION_FAILED,
+    /** The evaluation of a constraint could not be completed, so it is neither known to be violated nor satisfied. */
+    INDETERMINATE
+}
@@ -0,0 +1,11 @@
+package jb.validator.exceptions;
+
+/**
+ * This exception is thrown instead of invoking a service function, when the function is protected by an open circuit
+ * breaker or by a bulkhead without free capacity.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
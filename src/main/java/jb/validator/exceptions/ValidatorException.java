@@ -10,4 +10,14 @@ public class ValidatorException extends RuntimeException{
     public ValidatorException(String message, Throwable cause) {
         super(message, cause);
     }
+    /**
+     * Creates a ValidatorException that optionally skips capturing its stack trace. Disabling the stack trace makes
+     * creating the exception considerably cheaper when validations fail frequently.
+     * @param message the exception message.
+     * @param cause the cause of this exception, may be null.
+     * @param writableStackTrace whether the stack trace should be filled in.
+     */
+    public ValidatorException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
 }
@@ -2,9 +2,19 @@ package jb.validator.models;
 
 import jb.validator.exceptions.ValidatorException;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract representation of a validator concerning a specific class type T.
@@ -14,7 +24,8 @@ import java.util.Collection;
  */
 public abstract class AbstractValidator<CT> {
 
-    private final String delimiter = "; ";
+    private volatile ValidationPlan<CT> validationPlan;
+    private volatile ExceptionCauseFactory exceptionCauseFactory;
 
     /**
      * Supplier of a collection of constraints defining the validation process of this validator.
@@ -30,7 +41,88 @@ public abstract class AbstractValidator<CT> {
     public abstract Class<? extends Throwable> exceptionSupplier();
 
     /**
-     * Core function of this validator. Validates the collection of constraints returned by this.constraintSupplier().
+     * Defines whether the constraints returned by this.constraintSupplier() may be compiled once and reused for every
+     * validation. Validators whose constraints depend on state that changes between validations should override this
+     * method and return false, which causes this.constraintSupplier() to be invoked on every validation again.
+     * @return true if the constraint set of this validator never changes, false otherwise.
+     */
+    protected boolean isConstraintSetStatic() {
+        return true;
+    }
+
+    /**
+     * Defines whether failing validations throw ValidatorExceptions without capturing a stack trace. In this mode the
+     * cause of type this.exceptionSupplier() is created once and shared by all thrown exceptions, since its message
+     * and stack trace carry no information beyond the message of the ValidatorException itself.
+     * Validators that are expected to reject inputs frequently may override this method and return true.
+     * @return true if thrown exceptions should be stackless, false otherwise.
+     */
+    protected boolean isStacklessExceptionMode() {
+        return false;
+    }
+
+    /**
+     * Supplier of the policy used by this.validate(CT) and this.validateToResult(CT). By default, every constraint is
+     * evaluated. Validators may override this method to stop at the first or after a number of violations, which skips
+     * the remaining (possibly expensive) constraints.
+     * @return the evaluation policy of this validator.
+     */
+    protected EvaluationPolicy evaluationPolicySupplier() {
+        return EvaluationPolicy.evaluateAll();
+    }
+
+    /**
+     * Defines whether the compiled plan of this validator adapts its execution order to the observed failure rates of
+     * its constraints. If enabled, lock-free counters are maintained for every constraint and the plan is periodically
+     * reordered to run constraints first that fail often and are cheap to evaluate. This mainly pays off in
+     * combination with a fail-fast evaluation policy and a static constraint set.
+     * @return true if the execution order should be adapted, false otherwise.
+     */
+    protected boolean isAdaptiveOrderingEnabled() {
+        return false;
+    }
+
+    /**
+     * Defines whether the results of service functions (e.g. presentUsing or absentUsing) are memoized for the duration
+     * of a single call of this.validate(CT) or this.validateToResult(CT), keyed by the service function instance and
+     * its argument. Nested validations running on the same thread within such a call share its results, so a key that
+     * is looked up by several constraints, for several collection items or by nested validators reaches the service
+     * only once. Results are never shared between two validations, hence they cannot become stale.
+     * Service functions are identified by instance, so constraints meant to share results must use the same function
+     * instance (e.g. a field holding myRepositoryInstance::findById). Batch validations (this.validateAll) always share
+     * service results within the batch.
+     * @return true if service results should be memoized per validation, false otherwise.
+     */
+    protected boolean isServiceResultCachingEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns the compiled plan of this validator. The plan is built lazily and thread-safely on first access and
+     * reused afterwards, unless this.isConstraintSetStatic() returns false.
+     * @return the validation plan of this validator.
+     */
+    protected final ValidationPlan<CT> getValidationPlan() {
+        if(!isConstraintSetStatic()) {
+            return ValidationPlan.compile(constraintSupplier(), isAdaptiveOrderingEnabled());
+        }
+        ValidationPlan<CT> plan = validationPlan;
+        if(plan == null) {
+            synchronized (this) {
+                plan = validationPlan;
+                if(plan == null) {
+                    plan = ValidationPlan.compile(constraintSupplier(), isAdaptiveOrderingEnabled());
+                    validationPlan = plan;
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Core function of this validator. Validates the collection of constraints returned by this.constraintSupplier(),
+     * which is compiled once into a validation plan (see this.isConstraintSetStatic()).
+     * The constraints are evaluated according to this.evaluationPolicySupplier().
      * This method throws a ValidatorException possibly encapsulating another custom exception if any constraint is violated.
      * The encapsulated exception type is chosen according to the return value of this.exceptionSupplier().
      * Each violated constraint produces an informative String which all are put together in the thrown exception's message,
@@ -40,43 +132,196 @@ public abstract class AbstractValidator<CT> {
      *  the exception type given by this.exceptionSupplier().
      */
     public void validate(CT objectToValidate) throws ValidatorException {
-        Collection<Constraint<CT>> collectedConstraints = constraintSupplier();
-        if(collectedConstraints == null) {
-            return;
+        ValidationResult<CT> result = validateToResult(objectToValidate);
+        if(!result.isValid()) {
+            throwExceptionWithMessage(result.getMessage());
         }
-        StringBuilder messageBuilder = new StringBuilder();
-        collectedConstraints.forEach(constraint -> {
-                String constraintEvaluationMessage = constraint.validateObject(objectToValidate);
-                if(!constraintEvaluationMessage.isEmpty()) {
-                    messageBuilder.append(delimiter).append(constraintEvaluationMessage);
-                }
-        });
-        if(messageBuilder.length() != 0) {
-            throwExceptionWithMessage(messageBuilder.substring(delimiter.length()));
+    }
+
+    /**
+     * Validates the collection of constraints returned by this.constraintSupplier() without throwing an exception.
+     * Violation messages are only rendered when they are requested from the returned result. If the given object
+     * satisfies all constraints, the shared valid result is returned and nothing is allocated.
+     * @param objectToValidate object that should be validated
+     * @return the result of the validation holding one violation for every violated constraint.
+     */
+    public ValidationResult<CT> validateToResult(CT objectToValidate) {
+        return validateToResult(objectToValidate, evaluationPolicySupplier());
+    }
+
+    /**
+     * Validates the collection of constraints returned by this.constraintSupplier() without throwing an exception,
+     * stopping as soon as the given policy allows no further violations.
+     * @param objectToValidate object that should be validated
+     * @param evaluationPolicy policy defining when the evaluation stops.
+     * @return the result of the validation holding one violation for every detected violated constraint.
+     */
+    public ValidationResult<CT> validateToResult(CT objectToValidate, EvaluationPolicy evaluationPolicy) {
+        if(!isServiceResultCachingEnabled()) {
+            return getValidationPlan().evaluate(objectToValidate, evaluationPolicy);
+        }
+        ServiceResultCache openedServiceResults = ServiceResultCache.openScope();
+        try {
+            return getValidationPlan().evaluate(objectToValidate, evaluationPolicy);
+        } finally {
+            ServiceResultCache.closeScope(openedServiceResults);
+        }
+    }
+
+    /**
+     * Validates the given object without blocking on asynchronous constraints (e.g. presentUsingAsync). Synchronous
+     * constraints are evaluated on the calling thread, while the service lookups of all asynchronous constraints are
+     * started at once and run concurrently, so the validation takes about as long as the slowest lookup instead of the
+     * sum of all lookups.
+     * @param objectToValidate object that should be validated
+     * @return a future of the result of the validation, completing once all asynchronous constraints have completed.
+     */
+    public CompletableFuture<ValidationResult<CT>> validateAsync(CT objectToValidate) {
+        return validateAsync(objectToValidate, evaluationPolicySupplier());
+    }
+
+    /**
+     * Validates the given object without blocking on asynchronous constraints (see this.validateAsync(CT)), starting
+     * no further constraints as soon as the given policy allows no further violations.
+     * @param objectToValidate object that should be validated
+     * @param evaluationPolicy policy defining when the evaluation stops.
+     * @return a future of the result of the validation, completing once all asynchronous constraints have completed.
+     */
+    public CompletableFuture<ValidationResult<CT>> validateAsync(CT objectToValidate, EvaluationPolicy evaluationPolicy) {
+        return getValidationPlan().evaluateAsync(objectToValidate, evaluationPolicy);
+    }
+
+    /**
+     * Validates all given objects without throwing an exception. In contrast to calling this.validateToResult(CT) for
+     * every object, the constraints are evaluated constraint by constraint across the whole batch: every service-backed
+     * constraint created with a batch service function (e.g. absentUsingBatch) issues one deduplicated lookup for the
+     * keys of all objects, and results of single-key service functions are shared within the batch.
+     * @param objectsToValidate objects that should be validated
+     * @return the results of the validations in the iteration order of the given collection.
+     */
+    public List<ValidationResult<CT>> validateAll(Collection<CT> objectsToValidate) {
+        return validateAll(objectsToValidate, evaluationPolicySupplier());
+    }
+
+    /**
+     * Validates all given objects without throwing an exception (see this.validateAll(Collection)), stopping the
+     * evaluation of each object as soon as the given policy allows no further violations.
+     * @param objectsToValidate objects that should be validated
+     * @param evaluationPolicy policy defining when the evaluation of a single object stops.
+     * @return the results of the validations in the iteration order of the given collection.
+     */
+    public List<ValidationResult<CT>> validateAll(Collection<CT> objectsToValidate, EvaluationPolicy evaluationPolicy) {
+        if(objectsToValidate.isEmpty()) {
+            return List.of();
+        }
+        ServiceResultCache openedServiceResults = ServiceResultCache.openScope();
+        try {
+            return getValidationPlan().evaluateAll(new ArrayList<>(objectsToValidate), evaluationPolicy,
+                    ServiceResultCache.current());
+        } finally {
+            ServiceResultCache.closeScope(openedServiceResults);
         }
     }
 
+    /**
+     * Validates the records of the given iterator lazily, one record per call of next() on the returned iterator.
+     * Records are read from the source only when their results are requested, so sources of any length are
+     * validated with constant memory.
+     * @param records source of the records to validate.
+     * @return an iterator over the results of the validations in source order.
+     */
+    public Iterator<RecordResult<CT>> validateEach(Iterator<? extends CT> records) {
+        return new ValidatingIterator<>(records, this, null, 1);
+    }
+
+    /**
+     * Validates the records of the given iterator concurrently using the given worker pool. At most maxInFlight
+     * records are read ahead of the consumer of the returned iterator, which bounds memory and throttles reading to
+     * the pace of the consumer. Results are returned in source order.
+     * @param records source of the records to validate.
+     * @param workerPool pool validating the records.
+     * @param maxInFlight maximal number of records read and validated ahead of the consumer.
+     * @return an iterator over the results of the validations in source order.
+     */
+    public Iterator<RecordResult<CT>> validateEach(Iterator<? extends CT> records, Executor workerPool, int maxInFlight) {
+        return new ValidatingIterator<>(records, this, Objects.requireNonNull(workerPool), maxInFlight);
+    }
+
+    /**
+     * Validates the records of the given stream lazily (see this.validateEach(Iterator)). Closing the returned stream
+     * closes the given stream.
+     * @param records stream of the records to validate.
+     * @return a sequential stream of the results of the validations in source order.
+     */
+    public Stream<RecordResult<CT>> validateStream(Stream<? extends CT> records) {
+        return toStream(validateEach(records.iterator()), records);
+    }
+
+    /**
+     * Validates the records of the given stream concurrently using the given worker pool (see
+     * this.validateEach(Iterator, Executor, int)). Closing the returned stream closes the given stream.
+     * @param records stream of the records to validate.
+     * @param workerPool pool validating the records.
+     * @param maxInFlight maximal number of records read and validated ahead of the consumer.
+     * @return a sequential stream of the results of the validations in source order.
+     */
+    public Stream<RecordResult<CT>> validateStream(Stream<? extends CT> records, Executor workerPool, int maxInFlight) {
+        return toStream(validateEach(records.iterator(), workerPool, maxInFlight), records);
+    }
+
+    /**
+     * Creates a processor validating the records published by an upstream Flow.Publisher and publishing the results to
+     * a single subscriber. Records are only requested in response to the demand of the subscriber, at most the given
+     * number of records ahead of it, so a slow subscriber throttles the upstream publisher and records published
+     * before the subscriber attaches are not lost. Records are validated concurrently and results are delivered using
+     * the common fork/join pool.
+     * @param bufferCapacity maximal number of records requested ahead of the subscriber. Must be positive.
+     * @return a processor publishing the results of the validations in upstream order.
+     */
+    public Flow.Processor<CT, RecordResult<CT>> validatingProcessor(int bufferCapacity) {
+        return validatingProcessor(ForkJoinPool.commonPool(), bufferCapacity);
+    }
+
+    /**
+     * Creates a processor validating the records published by an upstream Flow.Publisher (see
+     * this.validatingProcessor(int)), validating records and delivering results using the given worker pool.
+     * @param workerPool pool validating the records and delivering the results to the subscriber.
+     * @param bufferCapacity maximal number of records requested ahead of the subscriber. Must be positive.
+     * @return a processor publishing the results of the validations in upstream order.
+     */
+    public Flow.Processor<CT, RecordResult<CT>> validatingProcessor(Executor workerPool, int bufferCapacity) {
+        return new ValidatingProcessor<>(this, workerPool, bufferCapacity);
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator, Stream<?> source) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(source::close);
+    }
+
     /**
      * Constructs a ValidatorException with the given errorMessage and puts the returned exception from this.exceptionSupplier()
      * as the cause. If this.exceptionSupplier() returns null, no cause will be set.
+     * The constructor of the cause and the message of a shared stackless cause are resolved only once per exception
+     * type (see ExceptionCauseFactory).
      */
     private void throwExceptionWithMessage(String errorMessage) throws ValidatorException {
-        Class<? extends Throwable> exception = exceptionSupplier();
-        if(exception == null) {
-            throw new ValidatorException(errorMessage);
+        boolean isStackless = isStacklessExceptionMode();
+        ExceptionCauseFactory causeFactory = getExceptionCauseFactory();
+        Throwable customException = isStackless ? causeFactory.getSharedInstance() : causeFactory.create(errorMessage);
+        if(customException == null) {
+            throw new ValidatorException(errorMessage, null, !isStackless);
         }
-        try {
-            Constructor<? extends Throwable> constructor = exceptionSupplier().getDeclaredConstructor(String.class);
-            Throwable customException = constructor.newInstance(errorMessage);
-            throw new ValidatorException(String.format("(Associated with %s) %s", customException.getClass().getSimpleName(), errorMessage), customException);
-        } catch (IllegalAccessException | NoSuchMethodException | SecurityException | InstantiationException | InvocationTargetException e) {
-            try {
-                Constructor<? extends Throwable> constructor = exceptionSupplier().getDeclaredConstructor();
-                Throwable customException = constructor.newInstance();
-                throw new ValidatorException(String.format("(Associated with %s) %s", customException.getClass().getSimpleName(), errorMessage), customException);
-            } catch (Exception ignored) {
-                throw new ValidatorException(errorMessage);
-            }
+        throw new ValidatorException(causeFactory.getMessagePrefix() + errorMessage, customException, !isStackless);
+    }
+
+    private ExceptionCauseFactory getExceptionCauseFactory() {
+        Class<? extends Throwable> exceptionType = exceptionSupplier();
+        ExceptionCauseFactory causeFactory = exceptionCauseFactory;
+        if(causeFactory == null || causeFactory.getExceptionType() != exceptionType) {
+            causeFactory = ExceptionCauseFactory.resolve(exceptionType,
+                    String.format("Validation failed in %s", getClass().getSimpleName()));
+            exceptionCauseFactory = causeFactory;
         }
+        return causeFactory;
     }
 }
@@ -0,0 +1,21 @@
+package jb.validator.models;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous evaluation step of a constraint, e.g. of a constraint backed by a non-blocking service function.
+ * The given context may only be used while this method runs, never by the returned future's completion stages.
+ * @param <CT> type of the object to validate.
+ */
+@FunctionalInterface
+interface AsyncConstraintCheck<CT> {
+
+    /**
+     * Starts checking the given object.
+     * @param objectToValidate object under validation.
+     * @param context context of the current validation, used to obtain field values.
+     * @return a future of the details of the detected violation, completing with null if the constraint holds.
+     */
+    CompletableFuture<ViolationDetails> check(CT objectToValidate, ValidationContext context);
+
+}
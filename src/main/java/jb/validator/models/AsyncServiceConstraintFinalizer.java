@@ -0,0 +1,50 @@
+package jb.validator.models;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Defines the functions used to create a constraint using asynchronous service functions, which return a future instead
+ * of blocking the validating thread (e.g. an asynchronous repository method).
+ * Constraints created this way are evaluated concurrently by AbstractValidator.validateAsync and are awaited when they
+ * are evaluated by any of the blocking validation methods.
+ * @param <CT> type of the object to validate
+ * @param <FT> type of the looked up values
+ */
+public interface AsyncServiceConstraintFinalizer<CT, FT> {
+
+    /**
+     * Asynchronous variant of ServiceConstraintFinalizer.presentUsing.
+     * @param asyncServiceFunction function returning a future of an optional of some type.
+     * @param <X> type of the optionals content.
+     * @return a constraint that will fail if the returned optional is empty.
+     */
+    <X> Constraint<CT> presentUsingAsync(Function<FT, CompletableFuture<Optional<X>>> asyncServiceFunction);
+
+    /**
+     * Asynchronous variant of ServiceConstraintFinalizer.absentUsing.
+     * @param asyncServiceFunction function returning a future of an optional of some type.
+     * @param <X> type of the optionals content.
+     * @return a constraint that will fail if the returned optional is not empty.
+     */
+    <X> Constraint<CT> absentUsingAsync(Function<FT, CompletableFuture<Optional<X>>> asyncServiceFunction);
+
+    /**
+     * Asynchronous variant of ServiceConstraintFinalizer.emptyUsing.
+     * @param asyncServiceFunction function returning a future of a collection of some type.
+     * @param <X> type of the collections content.
+     * @return a constraint that will fail if the returned collection is empty.
+     */
+    <X> Constraint<CT> emptyUsingAsync(Function<FT, CompletableFuture<Collection<X>>> asyncServiceFunction);
+
+    /**
+     * Asynchronous variant of ServiceConstraintFinalizer.notEmptyUsing.
+     * @param asyncServiceFunction function returning a future of a collection of some type.
+     * @param <X> type of the collections content.
+     * @return a constraint that will fail if the returned collection is not empty.
+     */
+    <X> Constraint<CT> notEmptyUsingAsync(Function<FT, CompletableFuture<Collection<X>>> asyncServiceFunction);
+
+}
@@ -0,0 +1,73 @@
+package jb.validator.models;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Defines the functions used to create a constraint using batched service functions, which look up a whole collection
+ * of values per call instead of a single value (e.g. myRepositoryInstance::findAllByIdIn).
+ * Looked up values are deduplicated and passed to the batch function in chunks of at most the given chunk size.
+ * Values missing in the map returned by the batch function are treated like an empty optional or an empty collection.
+ * Null values are never passed to a batch function.
+ * @param <CT> type of the object to validate
+ * @param <FT> type of the looked up values
+ */
+public interface BatchServiceConstraintFinalizer<CT, FT> {
+
+    int batchChunkSizeDefault = 500;
+
+    /**
+     * Batched variant of ServiceConstraintFinalizer.presentUsing.
+     * @param batchServiceFunction function returning an optional of some type for every given value.
+     * @param chunkSize maximal number of values passed to a single call of the batch function.
+     * @param <X> type of the optionals content.
+     * @return a constraint that will fail if the optional of any value is empty.
+     */
+    <X> Constraint<CT> presentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction, int chunkSize);
+
+    default <X> Constraint<CT> presentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction) {
+        return presentUsingBatch(batchServiceFunction, batchChunkSizeDefault);
+    }
+
+    /**
+     * Batched variant of ServiceConstraintFinalizer.absentUsing.
+     * @param batchServiceFunction function returning an optional of some type for every given value.
+     * @param chunkSize maximal number of values passed to a single call of the batch function.
+     * @param <X> type of the optionals content.
+     * @return a constraint that will fail if the optional of any value is not empty.
+     */
+    <X> Constraint<CT> absentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction, int chunkSize);
+
+    default <X> Constraint<CT> absentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction) {
+        return absentUsingBatch(batchServiceFunction, batchChunkSizeDefault);
+    }
+
+    /**
+     * Batched variant of ServiceConstraintFinalizer.emptyUsing.
+     * @param batchServiceFunction function returning a collection of some type for every given value.
+     * @param chunkSize maximal number of values passed to a single call of the batch function.
+     * @param <X> type of the collections content.
+     * @return a constraint that will fail if the collection of any value is empty.
+     */
+    <X> Constraint<CT> emptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction, int chunkSize);
+
+    default <X> Constraint<CT> emptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction) {
+        return emptyUsingBatch(batchServiceFunction, batchChunkSizeDefault);
+    }
+
+    /**
+     * Batched variant of ServiceConstraintFinalizer.notEmptyUsing.
+     * @param batchServiceFunction function returning a collection of some type for every given value.
+     * @param chunkSize maximal number of values passed to a single call of the batch function.
+     * @param <X> type of the collections content.
+     * @return a constraint that will fail if the collection of any value is not empty.
+     */
+    <X> Constraint<CT> notEmptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction, int chunkSize);
+
+    default <X> Constraint<CT> notEmptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction) {
+        return notEmptyUsingBatch(batchServiceFunction, batchChunkSizeDefault);
+    }
+
+}
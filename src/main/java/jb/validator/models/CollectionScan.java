@@ -0,0 +1,117 @@
+package jb.validator.models;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Strategy used by collection item constraints to scan the items of a collection. Collections of at least the
+ * configured size are split and scanned in parallel on a fork/join pool, smaller collections are scanned sequentially.
+ * Both scans short-circuit: once a matching item has been found, the remaining items (and parallel subtasks) are
+ * skipped. Sequential scans of random access lists are indexed, so they do not allocate an iterator.
+ * Parallel scans run with the service result scope of the calling thread (see ServiceResultCache), so nested
+ * validations of the items share the results of the validation they belong to.
+ */
+final class CollectionScan {
+
+    static final CollectionScan SEQUENTIAL = new CollectionScan(Integer.MAX_VALUE, null);
+
+    private final int parallelSizeThreshold;
+    private final ForkJoinPool forkJoinPool;
+
+    private CollectionScan(int parallelSizeThreshold, ForkJoinPool forkJoinPool) {
+        this.parallelSizeThreshold = parallelSizeThreshold;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * @param parallelSizeThreshold minimal size of a collection that is scanned in parallel. Must be positive.
+     * @param forkJoinPool pool executing parallel scans.
+     */
+    static CollectionScan parallel(int parallelSizeThreshold, ForkJoinPool forkJoinPool) {
+        if(parallelSizeThreshold < 1) {
+            throw new IllegalArgumentException(
+                    String.format("parallelSizeThreshold must be positive but was %s", parallelSizeThreshold));
+        }
+        return new CollectionScan(parallelSizeThreshold, Objects.requireNonNull(forkJoinPool));
+    }
+
+    /**
+     * @return true if any item of the given collection matches the given predicate.
+     */
+    <T> boolean anyMatch(Collection<T> items, Predicate<? super T> predicate) {
+        if(items.size() < parallelSizeThreshold) {
+            if(items instanceof List && items instanceof RandomAccess) {
+                List<T> itemList = (List<T>) items;
+                for(int i = 0, size = itemList.size(); i < size; i++) {
+                    if(predicate.test(itemList.get(i))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            for(T item : items) {
+                if(predicate.test(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return inPool(() -> items.parallelStream().anyMatch(predicate));
+    }
+
+    /**
+     * @return the first non-null result of the given function applied to the items in iteration order, or null if it
+     *  returns null for every item. Parallel scans return the same result as sequential scans, they only skip the items
+     *  behind the first item with a non-null result found so far.
+     */
+    <T, R> R findFirst(Collection<T> items, Function<? super T, R> resultFunction) {
+        if(items.size() < parallelSizeThreshold) {
+            if(items instanceof List && items instanceof RandomAccess) {
+                List<T> itemList = (List<T>) items;
+                for(int i = 0, size = itemList.size(); i < size; i++) {
+                    R result = resultFunction.apply(itemList.get(i));
+                    if(result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            }
+            for(T item : items) {
+                R result = resultFunction.apply(item);
+                if(result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+        ServiceResultCache scopeServiceResults = ServiceResultCache.current();
+        Function<T, R> scopedResultFunction = item -> {
+            ServiceResultCache previousServiceResults = ServiceResultCache.bindScope(scopeServiceResults);
+            try {
+                return resultFunction.apply(item);
+            } finally {
+                ServiceResultCache.restoreScope(previousServiceResults);
+            }
+        };
+        return inPool(() -> items.parallelStream().map(scopedResultFunction).filter(Objects::nonNull).findFirst().orElse(null));
+    }
+
+    /**
+     * Runs the given parallel stream operation in the configured pool. Parallel streams use the pool of the thread
+     * starting them, hence the operation is submitted to the pool unless it is the common pool.
+     */
+    private <R> R inPool(Supplier<R> parallelOperation) {
+        if(forkJoinPool == ForkJoinPool.commonPool()) {
+            return parallelOperation.get();
+        }
+        return forkJoinPool.submit((Callable<R>) parallelOperation::get).join();
+    }
+
+}
@@ -1,7 +1,19 @@
 package jb.validator.models;
 
+import jb.validator.constants.ConstraintCostEnum;
+import jb.validator.constants.FallbackOutcomeEnum;
+import jb.validator.constants.ViolationKindEnum;
+
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 /**
@@ -10,17 +22,128 @@ import java.util.function.Function;
  */
 public class Constraint<CT> {
 
-    private final Function<CT, Boolean> isConstraintViolatedFunction;
-    private final Function<CT, String> validationFailMessageFunction;
+    private static final MessageTemplate LEGACY_FAIL_MESSAGE_TEMPLATE = MessageTemplate.of("%s");
+    private static final MessageTemplate TIMEOUT_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[timeout: %s]: Evaluation did not complete in time");
+    private static final MessageTemplate INDETERMINATE_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[timeout: %s]: Evaluation did not complete in time, the outcome is indeterminate");
+    private static final MessageTemplate FAILURE_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[failure: %s]: Evaluation failed");
+    private static final MessageTemplate INDETERMINATE_FAILURE_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[failure: %s]: Evaluation failed, the outcome is indeterminate");
+
+    private final ConstraintCheck<CT> constraintCheck;
+    private final ViolationKindEnum violationKind;
+    private final ConstraintCostEnum costClass;
+    private final Function<CT, ?> fieldGetter;
+    private final ServiceBinding<CT, ?> serviceBinding;
+    private final AsyncConstraintCheck<CT> asyncConstraintCheck;
 
     private String constraintName;
+    private Duration timeout;
+    private FallbackOutcomeEnum timeoutOutcome;
+    private Executor timeoutExecutor;
+    private FallbackOutcomeEnum failureOutcome;
 
     // ----- Constructors
 
     protected Constraint(Function<CT, Boolean> isConstraintViolatedFunction,
                          Function<CT, String> validationFailMessageFunction) {
-        this.isConstraintViolatedFunction = isConstraintViolatedFunction;
-        this.validationFailMessageFunction = validationFailMessageFunction;
+        this(isConstraintViolatedFunction, validationFailMessageFunction, ViolationKindEnum.CUSTOM);
+    }
+
+    /**
+     * Creates a constraint from a violation predicate and a message function. The message function is only invoked
+     * when the message of a violation is actually rendered.
+     */
+    protected Constraint(Function<CT, Boolean> isConstraintViolatedFunction,
+                         Function<CT, String> validationFailMessageFunction,
+                         ViolationKindEnum violationKind) {
+        this(isConstraintViolatedFunction, validationFailMessageFunction, violationKind, ConstraintCostEnum.CUSTOM);
+    }
+
+    /**
+     * Creates a constraint from a violation predicate and a message function. The message function is only invoked
+     * when the message of a violation is actually rendered. The given cost class determines when the constraint is
+     * executed relative to the other constraints of a validator.
+     */
+    protected Constraint(Function<CT, Boolean> isConstraintViolatedFunction,
+                         Function<CT, String> validationFailMessageFunction,
+                         ViolationKindEnum violationKind,
+                         ConstraintCostEnum costClass) {
+        this(
+                (objectToValidate, context) -> isConstraintViolatedFunction.apply(objectToValidate)
+                        ? new ViolationDetails(
+                                LEGACY_FAIL_MESSAGE_TEMPLATE,
+                                MessageTemplate.lazy(() -> validationFailMessageFunction.apply(objectToValidate))
+                        )
+                        : null,
+                violationKind,
+                costClass,
+                null
+        );
+    }
+
+    /**
+     * @param fieldGetter getter of the field this constraint concerns, or null. It is used by validation plans to
+     *                    recognize constraints sharing the same getter instance.
+     */
+    Constraint(ConstraintCheck<CT> constraintCheck, ViolationKindEnum violationKind, ConstraintCostEnum costClass,
+               Function<CT, ?> fieldGetter) {
+        this(constraintCheck, violationKind, costClass, fieldGetter, null, null);
+    }
+
+    /**
+     * @param serviceBinding lookup of a service-backed constraint, or null. It is used by batch validations to look up
+     *                       the keys of all objects at once.
+     */
+    Constraint(ConstraintCheck<CT> constraintCheck, ViolationKindEnum violationKind, ConstraintCostEnum costClass,
+               Function<CT, ?> fieldGetter, ServiceBinding<CT, ?> serviceBinding) {
+        this(constraintCheck, violationKind, costClass, fieldGetter, serviceBinding, null);
+    }
+
+    private Constraint(ConstraintCheck<CT> constraintCheck, ViolationKindEnum violationKind, ConstraintCostEnum costClass,
+                       Function<CT, ?> fieldGetter, ServiceBinding<CT, ?> serviceBinding,
+                       AsyncConstraintCheck<CT> asyncConstraintCheck) {
+        this.constraintCheck = constraintCheck;
+        this.violationKind = violationKind;
+        this.costClass = costClass;
+        this.fieldGetter = fieldGetter;
+        this.serviceBinding = serviceBinding;
+        this.asyncConstraintCheck = asyncConstraintCheck;
+    }
+
+    /**
+     * Creates a constraint from an asynchronous check. Blocking validations wait for the completion of the check.
+     */
+    static <CT> Constraint<CT> ofAsync(AsyncConstraintCheck<CT> asyncConstraintCheck, ViolationKindEnum violationKind,
+                                       ConstraintCostEnum costClass, Function<CT, ?> fieldGetter) {
+        return new Constraint<>(
+                (objectToValidate, context) -> await(asyncConstraintCheck.check(objectToValidate, context)),
+                violationKind,
+                costClass,
+                fieldGetter,
+                null,
+                asyncConstraintCheck
+        );
+    }
+
+    /**
+     * Waits for the given future, rethrowing unchecked exceptions of the check itself instead of a CompletionException.
+     */
+    private static ViolationDetails await(CompletableFuture<ViolationDetails> violationDetailsFuture) {
+        try {
+            return violationDetailsFuture.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
 
@@ -31,17 +154,214 @@ public class Constraint<CT> {
      * If the validation passed, the returned string will be empty.
      */
     public String validateObject(CT objectToValidate) {
-        String message;
-        if (isConstraintViolatedFunction.apply(objectToValidate)){
-            message = String.format(
-                    "Constraint %s was violated %s",
-                    Objects.requireNonNullElse(constraintName, "ANONYMOUS"),
-                    validationFailMessageFunction.apply(objectToValidate)
-            );
-        } else {
-            message = "";
+        ConstraintViolation<CT> violation = evaluate(objectToValidate);
+        return violation == null ? "" : violation.getMessage();
+    }
+
+    /**
+     * Validate the given object without rendering any message.
+     * @return a violation of this constraint or null if the validation passed.
+     */
+    ConstraintViolation<CT> evaluate(CT objectToValidate) {
+        return evaluate(objectToValidate, ValidationContext.DIRECT);
+    }
+
+    ConstraintViolation<CT> evaluate(CT objectToValidate, ValidationContext context) {
+        ViolationDetails violationDetails;
+        try {
+            violationDetails = constraintCheck.check(objectToValidate, context);
+        } catch (RuntimeException e) {
+            return createFailureViolation(e);
+        }
+        return violationDetails == null ? null : new ConstraintViolation<>(this, violationDetails);
+    }
+
+    /**
+     * Validate the given object within the time budget of this constraint (see withTimeout) and of the given deadline.
+     * The deadline only bounds the evaluation of nested and service-backed constraints, cheaper constraints are not
+     * started once it has passed but are never interrupted.
+     * Constraints with a time budget are evaluated on a worker thread, with a copy of the values memoized so far and
+     * sharing the service results of the given context. Service-backed constraints whose keys have been looked up
+     * already (e.g. prefetched by a batch validation) are evaluated directly, since they do not call the service.
+     * @param deadline deadline of the current validation, or null.
+     * @return a violation of this constraint or null if the validation passed.
+     */
+    ConstraintViolation<CT> evaluate(CT objectToValidate, ValidationContext context, ValidationDeadline deadline) {
+        if(deadline != null && deadline.isExpired()) {
+            return createFallbackViolation(deadline.getOutcome(), deadline.getDuration());
+        }
+        if(timeout == null && !isBoundByDeadline(deadline)
+                || serviceBinding != null && serviceBinding.isResolved(objectToValidate, context)) {
+            return evaluate(objectToValidate, context);
+        }
+        boolean isTimeoutBinding = isTimeoutBinding(deadline);
+        long budgetNanos = isTimeoutBinding ? timeout.toNanos() : deadline.getRemainingNanos();
+        FallbackOutcomeEnum outcome = isTimeoutBinding ? timeoutOutcome : deadline.getOutcome();
+        Duration limit = isTimeoutBinding ? timeout : deadline.getDuration();
+        ViolationDetails violationDetails;
+        try {
+            violationDetails = asyncConstraintCheck == null
+                    ? TimeLimitedExecution.call(createWorkerTask(objectToValidate, context), getExecutor(deadline), budgetNanos)
+                    : TimeLimitedExecution.await(asyncConstraintCheck.check(objectToValidate, context), budgetNanos);
+        } catch (TimeoutException e) {
+            return createFallbackViolation(outcome, limit);
+        } catch (RuntimeException e) {
+            return createFailureViolation(e);
+        }
+        return violationDetails == null ? null : new ConstraintViolation<>(this, violationDetails);
+    }
+
+    /**
+     * Creates a task evaluating the check of this constraint on a worker thread, continuing the validation of the
+     * given context and the service result scope open on the current thread.
+     */
+    private Callable<ViolationDetails> createWorkerTask(CT objectToValidate, ValidationContext context) {
+        ValidationContext workerContext = context.copyForWorker();
+        ServiceResultCache scopeServiceResults = ServiceResultCache.current();
+        return () -> {
+            ServiceResultCache previousServiceResults = ServiceResultCache.bindScope(scopeServiceResults);
+            try {
+                return constraintCheck.check(objectToValidate, workerContext);
+            } finally {
+                ServiceResultCache.restoreScope(previousServiceResults);
+            }
+        };
+    }
+
+    /**
+     * @return the executor of time-limited evaluations of this constraint, or null to use the shared pool.
+     */
+    private Executor getExecutor(ValidationDeadline deadline) {
+        if(timeoutExecutor != null) {
+            return timeoutExecutor;
         }
-        return message;
+        return deadline == null ? null : deadline.getExecutor();
+    }
+
+    /**
+     * Starts the validation of the given object within the time budget of this constraint and of the given deadline
+     * (see evaluate(CT, ValidationContext, ValidationDeadline)). Synchronous constraints are evaluated immediately.
+     * @param deadline deadline of the current validation, or null.
+     * @return a future of a violation of this constraint, completing with null if the validation passed.
+     */
+    CompletableFuture<ConstraintViolation<CT>> evaluateAsync(CT objectToValidate, ValidationContext context,
+                                                             ValidationDeadline deadline) {
+        if(asyncConstraintCheck == null) {
+            return CompletableFuture.completedFuture(evaluate(objectToValidate, context, deadline));
+        }
+        if(deadline != null && deadline.isExpired()) {
+            return CompletableFuture.completedFuture(createFallbackViolation(deadline.getOutcome(), deadline.getDuration()));
+        }
+        CompletableFuture<ConstraintViolation<CT>> violationFuture = evaluateAsync(objectToValidate, context);
+        if(timeout == null && !isBoundByDeadline(deadline)) {
+            return violationFuture;
+        }
+        boolean isTimeoutBinding = isTimeoutBinding(deadline);
+        long budgetNanos = isTimeoutBinding ? timeout.toNanos() : deadline.getRemainingNanos();
+        FallbackOutcomeEnum outcome = isTimeoutBinding ? timeoutOutcome : deadline.getOutcome();
+        Duration limit = isTimeoutBinding ? timeout : deadline.getDuration();
+        return violationFuture
+                .orTimeout(budgetNanos, TimeUnit.NANOSECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if(cause instanceof TimeoutException) {
+                        return createFallbackViolation(outcome, limit);
+                    }
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                });
+    }
+
+    /**
+     * @return true if the given deadline limits the evaluation of this constraint, which applies to nested and
+     *  service-backed constraints only.
+     */
+    private boolean isBoundByDeadline(ValidationDeadline deadline) {
+        return deadline != null && costClass.getRelativeCost() >= ConstraintCostEnum.NESTED.getRelativeCost();
+    }
+
+    /**
+     * @return true if the timeout of this constraint, rather than the given deadline, limits its evaluation.
+     */
+    private boolean isTimeoutBinding(ValidationDeadline deadline) {
+        return timeout != null && (!isBoundByDeadline(deadline) || timeout.toNanos() <= deadline.getRemainingNanos());
+    }
+
+    /**
+     * Creates the violation reported for an evaluation that failed with the given exception.
+     * @return the violation or null if the failure outcome treats the constraint as satisfied.
+     * @throws RuntimeException the given exception, if no failure outcome is configured.
+     */
+    private ConstraintViolation<CT> createFailureViolation(RuntimeException e) {
+        if(failureOutcome == null) {
+            throw e;
+        }
+        switch (failureOutcome) {
+            case VIOLATION:
+                return new ConstraintViolation<>(this, new ViolationDetails(e, FAILURE_FAIL_MESSAGE_TEMPLATE, e),
+                        ViolationKindEnum.EVALUATION_FAILED);
+            case INDETERMINATE:
+                return new ConstraintViolation<>(this, new ViolationDetails(e, INDETERMINATE_FAILURE_FAIL_MESSAGE_TEMPLATE, e),
+                        ViolationKindEnum.INDETERMINATE);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates the violation reported for an evaluation that did not complete in time.
+     * @return the violation or null if the given outcome treats the constraint as satisfied.
+     */
+    ConstraintViolation<CT> createFallbackViolation(FallbackOutcomeEnum outcome, Duration limit) {
+        switch (outcome) {
+            case VIOLATION:
+                return new ConstraintViolation<>(this, new ViolationDetails(TIMEOUT_FAIL_MESSAGE_TEMPLATE, limit),
+                        ViolationKindEnum.TIMED_OUT);
+            case INDETERMINATE:
+                return new ConstraintViolation<>(this, new ViolationDetails(INDETERMINATE_FAIL_MESSAGE_TEMPLATE, limit),
+                        ViolationKindEnum.INDETERMINATE);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Starts the validation of the given object. Synchronous constraints are evaluated immediately.
+     * @return a future of a violation of this constraint, completing with null if the validation passed.
+     */
+    CompletableFuture<ConstraintViolation<CT>> evaluateAsync(CT objectToValidate, ValidationContext context) {
+        if(asyncConstraintCheck == null) {
+            return CompletableFuture.completedFuture(evaluate(objectToValidate, context));
+        }
+        CompletableFuture<ViolationDetails> violationDetailsFuture;
+        try {
+            violationDetailsFuture = asyncConstraintCheck.check(objectToValidate, context);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(createFailureViolation(e));
+        }
+        CompletableFuture<ConstraintViolation<CT>> violationFuture = violationDetailsFuture
+                .thenApply(violationDetails -> violationDetails == null ? null : new ConstraintViolation<>(this, violationDetails));
+        if(failureOutcome == null) {
+            return violationFuture;
+        }
+        return violationFuture.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if(cause instanceof RuntimeException && !(cause instanceof CancellationException)) {
+                return createFailureViolation((RuntimeException) cause);
+            }
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        });
+    }
+
+    boolean isAsync() {
+        return asyncConstraintCheck != null;
+    }
+
+    Function<CT, ?> getFieldGetter() {
+        return fieldGetter;
+    }
+
+    ServiceBinding<CT, ?> getServiceBinding() {
+        return serviceBinding;
     }
 
     public Constraint<CT> addName(String constraintName) {
@@ -49,6 +369,78 @@ public class Constraint<CT> {
         return this;
     }
 
+    /**
+     * Limits the duration of every evaluation of this constraint. An evaluation exceeding the given timeout is
+     * abandoned (and interrupted) and results in the given outcome. This is mainly meant for service-backed
+     * constraints whose service might become slow.
+     * Evaluations run on a bounded shared pool (or on the executor of the deadline of the evaluation policy, see
+     * EvaluationPolicy.withDeadline), evaluations rejected by a saturated pool result in the given outcome as well.
+     * @param timeout maximal duration of an evaluation. Must be positive.
+     * @param timeoutOutcome outcome of an evaluation that did not complete in time.
+     * @return this constraint.
+     */
+    public Constraint<CT> withTimeout(Duration timeout, FallbackOutcomeEnum timeoutOutcome) {
+        if(timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(String.format("timeout must be positive but was %s", timeout));
+        }
+        this.timeout = timeout;
+        this.timeoutOutcome = Objects.requireNonNull(timeoutOutcome);
+        return this;
+    }
+
+    /**
+     * Limits the duration of every evaluation of this constraint (see withTimeout(Duration, FallbackOutcomeEnum)),
+     * running the evaluations on the given executor. An evaluation rejected by the executor, e.g. by a bounded
+     * ThreadPoolExecutor whose threads are all busy, results in the given outcome.
+     * @param timeout maximal duration of an evaluation. Must be positive.
+     * @param timeoutOutcome outcome of an evaluation that did not complete in time or was rejected.
+     * @param timeoutExecutor executor running the evaluations of this constraint.
+     * @return this constraint.
+     */
+    public Constraint<CT> withTimeout(Duration timeout, FallbackOutcomeEnum timeoutOutcome, Executor timeoutExecutor) {
+        withTimeout(timeout, timeoutOutcome);
+        this.timeoutExecutor = Objects.requireNonNull(timeoutExecutor);
+        return this;
+    }
+
+    /**
+     * Catches exceptions thrown while evaluating this constraint, e.g. by a failing service function or by a circuit
+     * breaker or bulkhead rejecting a call (ServiceUnavailableException), and reports the given outcome instead of
+     * failing the whole validation. The caught exception is available as the cause of the resulting violation.
+     * @param failureOutcome outcome of an evaluation that failed with an exception.
+     * @return this constraint.
+     */
+    public Constraint<CT> withFailureOutcome(FallbackOutcomeEnum failureOutcome) {
+        this.failureOutcome = Objects.requireNonNull(failureOutcome);
+        return this;
+    }
+
+    /**
+     * @return the maximal duration of an evaluation of this constraint, or null if it is not limited.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    boolean hasFailureOutcome() {
+        return failureOutcome != null;
+    }
+
+    /**
+     * @return the name of this constraint or "ANONYMOUS" if it was not named.
+     */
+    public String getConstraintName() {
+        return Objects.requireNonNullElse(constraintName, "ANONYMOUS");
+    }
+
+    public ViolationKindEnum getViolationKind() {
+        return violationKind;
+    }
+
+    public ConstraintCostEnum getCostClass() {
+        return costClass;
+    }
+
     // ----- Builder initializers
 
     /**
@@ -63,6 +455,19 @@ public class Constraint<CT> {
         return new ConstraintBuilderField<>(fieldGetter);
     }
 
+    /**
+     * Creates a builder for this constraint concerning a single field of the object under validation (see
+     * forField(Function)). Method references are canonicalized, so constraints built from separate occurrences of the
+     * same method reference (e.g. X::getMyField) invoke it only once per validation.
+     * @param fieldGetter supplier of the field value under validation, usually a method reference (X::getMyField).
+     * @param <X> type of the object under validation.
+     * @param <Y> type of the field under validation.
+     * @return a builder for a constraint concerning a single field.
+     */
+    public static <X, Y> ConstraintBuilderField<X, Y> forField(SerializableFunction<X, Y> fieldGetter) {
+        return new ConstraintBuilderField<>(GetterRegistry.canonicalize(fieldGetter));
+    }
+
     /**
      * Creates a builder for this constraint concerning items of some collection-field within the object under validation.
      * @param fieldGetter supplier of the field value under validation. Usually this is should be a reference to an instance
@@ -76,4 +481,19 @@ public class Constraint<CT> {
         return new ConstraintBuilderCollectionItem<>(fieldGetter);
     }
 
+    /**
+     * Creates a builder for this constraint concerning items of some collection-field within the object under validation
+     * (see forItemsInCollection(Function)). Method references are canonicalized, so constraints built from separate
+     * occurrences of the same method reference invoke it only once per validation.
+     * @param fieldGetter supplier of the field value under validation, usually a method reference (X::getMyField).
+     * @param <X> type of the object under validation.
+     * @param <Y> type of the field under validation.
+     * @param <R> type of the items within the collection.
+     * @return a builder for a constraint concerning items within a collection-field.
+     */
+    public static <X, Y extends Collection<R>, R> ConstraintBuilderCollectionItem<X, R, Y> forItemsInCollection(
+            SerializableFunction<X, Y> fieldGetter) {
+        return new ConstraintBuilderCollectionItem<>(GetterRegistry.canonicalize(fieldGetter));
+    }
+
 }
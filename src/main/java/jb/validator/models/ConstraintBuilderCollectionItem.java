@@ -1,15 +1,31 @@
 package jb.validator.models;
 
 import jb.validator.ThrowingConsumer;
+import jb.validator.constants.ConstraintCostEnum;
+import jb.validator.constants.ViolationKindEnum;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
-public class ConstraintBuilderCollectionItem<CT, IT, FT extends Collection<IT>> implements ServiceConstraintFinalizer<CT, IT>{
+public class ConstraintBuilderCollectionItem<CT, IT, FT extends Collection<IT>>
+        implements ServiceConstraintFinalizer<CT, IT>, BatchServiceConstraintFinalizer<CT, IT>,
+        AsyncServiceConstraintFinalizer<CT, IT> {
+
+    private static final MessageTemplate COLLECTION_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[object: %s, collection: %s]: Some item caused a failure (%s)");
 
     protected Function<CT, FT> fieldGetter;
+    protected CollectionScan collectionScan = CollectionScan.SEQUENTIAL;
 
     protected ConstraintBuilderCollectionItem(Function<CT, FT> fieldGetter) {
         this.fieldGetter = fieldGetter;
@@ -26,101 +42,237 @@ public class ConstraintBuilderCollectionItem<CT, IT, FT extends Collection<IT>>
         return new ConstraintBuilderFinalCollectionItem<>(this, targetGetter);
     }
 
+    /**
+     * Lets the constraints created afterwards by this builder (and by the builders returned by its suchThatTarget)
+     * scan collections of at least the given size in parallel on the common fork/join pool. Item checks of bound,
+     * not-null and noThrowsUsing constraints are then split across cores and stop as soon as any item violates the
+     * constraint. Smaller collections are still scanned sequentially.
+     * Like sequential scans, noThrowsUsing constraints report the throwable of the first failing item in iteration
+     * order, and nested validations share the service results of the enclosing validation.
+     * @param parallelSizeThreshold minimal size of a collection that is scanned in parallel. Must be positive.
+     * @return this builder.
+     */
+    public ConstraintBuilderCollectionItem<CT, IT, FT> inParallel(int parallelSizeThreshold) {
+        return inParallel(parallelSizeThreshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Like inParallel(int), scanning collections in the given pool.
+     * @param parallelSizeThreshold minimal size of a collection that is scanned in parallel. Must be positive.
+     * @param forkJoinPool pool executing parallel scans.
+     * @return this builder.
+     */
+    public ConstraintBuilderCollectionItem<CT, IT, FT> inParallel(int parallelSizeThreshold, ForkJoinPool forkJoinPool) {
+        this.collectionScan = CollectionScan.parallel(parallelSizeThreshold, forkJoinPool);
+        return this;
+    }
+
     // ----- "data" object validation
 
     public <X> Constraint<CT> presentUsing(Function<IT, Optional<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null || fieldToValidate.isEmpty()) {
-                return false;
-            } else {
-                return fieldToValidate.stream().anyMatch(item -> serviceFunction.apply(item).isEmpty());
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(existenceFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
     }
 
     public <X> Constraint<CT> absentUsing(Function<IT, Optional<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null || fieldToValidate.isEmpty()) {
-                return false;
-            } else {
-                return fieldToValidate.stream().anyMatch(item -> serviceFunction.apply(item).isPresent());
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(absenceFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
     }
 
     public <X> Constraint<CT> emptyUsing(Function<IT, Collection<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null || fieldToValidate.isEmpty()) {
-                return false;
-            } else {
-                return fieldToValidate.stream().anyMatch(item -> serviceFunction.apply(item).isEmpty());
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(emptyCollectionFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
     }
 
     public <X> Constraint<CT> notEmptyUsing(Function<IT, Collection<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null || fieldToValidate.isEmpty()) {
-                return false;
-            } else {
-                return fieldToValidate.stream().anyMatch(item -> !serviceFunction.apply(item).isEmpty());
-            }
-        };
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    // ----- batched "data" object validation
+
+    public <X> Constraint<CT> presentUsingBatch(Function<Collection<IT>, Map<IT, Optional<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, Optional.empty()), Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
+    }
+
+    public <X> Constraint<CT> absentUsingBatch(Function<Collection<IT>, Map<IT, Optional<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, Optional.empty()), Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
+    }
+
+    public <X> Constraint<CT> emptyUsingBatch(Function<Collection<IT>, Map<IT, Collection<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, List.of()), Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
+    }
+
+    public <X> Constraint<CT> notEmptyUsingBatch(Function<Collection<IT>, Map<IT, Collection<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, List.of()), result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    /**
+     * Creates a constraint that fails if the lookup result of any item satisfies the given predicate. Single-key lookups
+     * are performed item by item and stop at the first failing item, batched lookups look up all distinct items at once.
+     */
+    private <V> Constraint<CT> createServiceConstraint(ServiceLookup<IT, V> serviceLookup, Predicate<V> isResultViolating,
+                                                       String failMessageContent, ViolationKindEnum violationKind) {
         return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(nonEmptyCollectionFailMessageDefault)
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null || fieldToValidate.isEmpty()) {
+                        return null;
+                    }
+                    boolean isViolated = false;
+                    if(serviceLookup.isBatched()) {
+                        Map<IT, V> results = context.lookupAll(serviceLookup, fieldToValidate);
+                        for(IT item : fieldToValidate) {
+                            if(item != null && isResultViolating.test(results.get(item))) {
+                                isViolated = true;
+                                break;
+                            }
+                        }
+                    } else {
+                        for(IT item : fieldToValidate) {
+                            if(isResultViolating.test(context.lookup(serviceLookup, item))) {
+                                isViolated = true;
+                                break;
+                            }
+                        }
+                    }
+                    return isViolated ? createViolationDetails(objectToValidate, fieldToValidate, failMessageContent) : null;
+                },
+                violationKind,
+                ConstraintCostEnum.SERVICE,
+                fieldGetter,
+                new ServiceBinding<>(serviceLookup, (objectToValidate, context) -> context.getFieldValue(fieldGetter, objectToValidate))
+        );
+    }
+
+    // ----- asynchronous "data" object validation
+
+    public <X> Constraint<CT> presentUsingAsync(Function<IT, CompletableFuture<Optional<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
+    }
+
+    public <X> Constraint<CT> absentUsingAsync(Function<IT, CompletableFuture<Optional<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
+    }
+
+    public <X> Constraint<CT> emptyUsingAsync(Function<IT, CompletableFuture<Collection<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
+    }
+
+    public <X> Constraint<CT> notEmptyUsingAsync(Function<IT, CompletableFuture<Collection<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    /**
+     * Creates a constraint that fails if the asynchronously looked up result of any item satisfies the given predicate.
+     * The lookups of all distinct items are started at once.
+     */
+    private <V> Constraint<CT> createAsyncServiceConstraint(Function<IT, CompletableFuture<V>> asyncServiceFunction,
+                                                            Predicate<V> isResultViolating,
+                                                            String failMessageContent, ViolationKindEnum violationKind) {
+        return Constraint.ofAsync(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null || fieldToValidate.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    Map<IT, CompletableFuture<V>> resultFutures = new LinkedHashMap<>();
+                    for(IT item : fieldToValidate) {
+                        resultFutures.computeIfAbsent(item, asyncServiceFunction);
+                    }
+                    return CompletableFuture.allOf(resultFutures.values().toArray(new CompletableFuture<?>[0]))
+                            .thenApply(ignored -> resultFutures.values().stream()
+                                    .anyMatch(resultFuture -> isResultViolating.test(resultFuture.join()))
+                                    ? createViolationDetails(objectToValidate, fieldToValidate, failMessageContent)
+                                    : null);
+                },
+                violationKind,
+                ConstraintCostEnum.SERVICE,
+                fieldGetter
         );
     }
 
     // ----- nested validator
 
     public Constraint<CT> noThrowsUsing(ThrowingConsumer<IT> fieldConsumer){
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if (fieldToValidate != null && !fieldToValidate.isEmpty()) {
-                for(IT item : fieldToValidate) {
-                    try {
-                        fieldConsumer.accept(item);
-                    } catch (Throwable e) {
-                        return true;
-                    }
-                }
-            }
-            return false;
-        };
-        // When this function is actually called, fieldGetter.apply(objectToValidate) does not return null or an empty list (since isConstraintViolatedFunction evaluated to true)
-        Function<CT, String> getCustomFailMessageFunction = objectToValidate -> {
-            String throwMessage = "THIS MESSAGE SHOULD NEVER APPEAR"; // the catch block is expected to get triggered
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            for(IT item : fieldToValidate) {
-                try {
-                    fieldConsumer.accept(item);
-                } catch (Throwable e) {
-                    throwMessage = e.toString();
-                    break;
-                }
+        CollectionScan collectionScan = this.collectionScan;
+        // the consumer is only executed once per item, so the violation carries the caught throwable
+        Function<IT, Throwable> itemCheck = item -> {
+            try {
+                fieldConsumer.accept(item);
+                return null;
+            } catch (Throwable itemException) {
+                return itemException;
             }
-            return getValidationFailMessageFunction(throwMessage).apply(objectToValidate);
         };
         return new Constraint<>(
-                isConstraintViolatedFunction,
-                getCustomFailMessageFunction
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return null;
+                    }
+                    Throwable e = collectionScan.findFirst(fieldToValidate, itemCheck);
+                    if(e == null) {
+                        return null;
+                    }
+                    return new ViolationDetails(
+                            e,
+                            COLLECTION_FAIL_MESSAGE_TEMPLATE,
+                            objectToValidate.getClass().getSimpleName(),
+                            abbreviateCollection(fieldToValidate),
+                            e
+                    );
+                },
+                ViolationKindEnum.EXCEPTION_THROWN,
+                ConstraintCostEnum.NESTED,
+                fieldGetter
+        );
+    }
+
+    public Constraint<CT> validWith(AbstractValidator<IT> validator) {
+        return new Constraint<>(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return null;
+                    }
+                    List<NestedValidationResult> nestedResults = null;
+                    int itemIndex = 0;
+                    for(IT item : fieldToValidate) {
+                        ValidationResult<IT> nestedResult = item == null ? ValidationResult.valid() : validator.validateToResult(item);
+                        if(!nestedResult.isValid()) {
+                            if(nestedResults == null) {
+                                nestedResults = new ArrayList<>();
+                            }
+                            nestedResults.add(new NestedValidationResult(String.format("[%s]", itemIndex), nestedResult));
+                        }
+                        itemIndex++;
+                    }
+                    if(nestedResults == null) {
+                        return null;
+                    }
+                    List<NestedValidationResult> failedItems = List.copyOf(nestedResults);
+                    return new ViolationDetails(
+                            failedItems,
+                            COLLECTION_FAIL_MESSAGE_TEMPLATE,
+                            objectToValidate.getClass().getSimpleName(),
+                            abbreviateCollection(fieldToValidate),
+                            MessageTemplate.lazy(() -> failedItems.stream()
+                                    .map(NestedValidationResult::toString)
+                                    .collect(Collectors.joining(", ")))
+                    );
+                },
+                ViolationKindEnum.NESTED_VIOLATED,
+                ConstraintCostEnum.NESTED,
+                fieldGetter
         );
     }
 
@@ -132,35 +284,37 @@ public class ConstraintBuilderCollectionItem<CT, IT, FT extends Collection<IT>>
      * @return a not-null constraint for the respective field.
      */
     public Constraint<CT> notNull() {
+        CollectionScan collectionScan = this.collectionScan;
         return new Constraint<>(
-                objectToValidate -> {
-                    FT fieldValue = fieldGetter.apply(objectToValidate);
-                    if(fieldValue == null) {
-                        return false;
+                (objectToValidate, context) -> {
+                    FT fieldValue = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldValue == null || !collectionScan.anyMatch(fieldValue, Objects::isNull)) {
+                        return null;
                     }
-                    return fieldValue.stream().anyMatch(Objects::isNull);
+                    return createViolationDetails(objectToValidate, fieldValue, "Item value was null");
                 },
-                getValidationFailMessageFunction("Item value was null")
+                ViolationKindEnum.NULL_VALUE,
+                ConstraintCostEnum.COLLECTION,
+                fieldGetter
         );
     }
 
     // ----- helper functions
 
-    private Function<CT, String> getValidationFailMessageFunction(String failMessageContent) {
-        int maxStringLength = 100;
-        String endPart = "...]";
-        return objectToValidate -> {
-            String collectionString = fieldGetter.apply(objectToValidate).toString();
-            if(collectionString.length() > maxStringLength) {
-                collectionString = collectionString.substring(0, maxStringLength - endPart.length()) + endPart;
-            }
-            return String.format(
-                    "[object: %s, collection: %s]: Some item caused a failure (%s)",
-                    objectToValidate.getClass().getSimpleName(),
-                    collectionString,
-                    failMessageContent
-            );
-        };
+    private ViolationDetails createViolationDetails(CT objectToValidate, FT fieldValue, String failMessageContent) {
+        return new ViolationDetails(
+                COLLECTION_FAIL_MESSAGE_TEMPLATE,
+                objectToValidate.getClass().getSimpleName(),
+                abbreviateCollection(fieldValue),
+                failMessageContent
+        );
+    }
+
+    /**
+     * @return a message argument rendering the given collection abbreviated to at most 100 characters.
+     */
+    static Object abbreviateCollection(Collection<?> collection) {
+        return MessageTemplate.abbreviated(collection, 100, "...]");
     }
 
 }
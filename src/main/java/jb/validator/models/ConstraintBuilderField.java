@@ -1,12 +1,26 @@
 package jb.validator.models;
 
 import jb.validator.ThrowingConsumer;
+import jb.validator.constants.ConstraintCostEnum;
+import jb.validator.constants.ViolationKindEnum;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
-public class ConstraintBuilderField<CT, FT> implements ServiceConstraintFinalizer<CT, FT>{
+public class ConstraintBuilderField<CT, FT>
+        implements ServiceConstraintFinalizer<CT, FT>, BatchServiceConstraintFinalizer<CT, FT>,
+        AsyncServiceConstraintFinalizer<CT, FT> {
+
+    private static final MessageTemplate FIELD_FAIL_MESSAGE_TEMPLATE = MessageTemplate.of("[object: %s, field value: %s]: %s");
+    private static final MessageTemplate EXCEPTION_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[object: %s, field value: %s]: An unwanted exception occurred (%s)");
+    private static final MessageTemplate NESTED_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[object: %s, field value: %s]: Nested validation failed (%s)");
 
     protected Function<CT, FT> fieldGetter;
 
@@ -25,105 +39,182 @@ public class ConstraintBuilderField<CT, FT> implements ServiceConstraintFinalize
         return new ConstraintBuilderFinalField<>(this, targetGetter);
     }
 
+    /**
+     * Defines the target value of the field under validation (see suchThatTarget(Function)). Method references are
+     * canonicalized, so constraints built from separate occurrences of the same field and target method references
+     * compute the target value only once per validation.
+     * @param targetGetter supplier for the value derived from the field value that is the actual target of this constraint.
+     * @param <X> type of the target value (must implement Comparable<X>).
+     * @return the next constraint builder in the building process
+     */
+    public <X extends Comparable<X>> ConstraintBuilderFinalField<CT, FT, X> suchThatTarget(SerializableFunction<FT, X> targetGetter){
+        return new ConstraintBuilderFinalField<>(this, GetterRegistry.canonicalize(targetGetter));
+    }
+
     // ----- "data" object validation
 
     public <X> Constraint<CT> presentUsing(Function<FT, Optional<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null) {
-                return false;
-            } else {
-                return serviceFunction.apply(fieldToValidate).isEmpty();
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(existenceFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
     }
 
     public <X> Constraint<CT> absentUsing(Function<FT, Optional<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null) {
-                return false;
-            } else {
-                return serviceFunction.apply(fieldToValidate).isPresent();
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(absenceFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
     }
 
     public <X> Constraint<CT> emptyUsing(Function<FT, Collection<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null) {
-                return false;
-            } else {
-                return serviceFunction.apply(fieldToValidate).isEmpty();
-            }
-        };
-        return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(emptyCollectionFailMessageDefault)
-        );
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
     }
 
     public <X> Constraint<CT> notEmptyUsing(Function<FT, Collection<X>> serviceFunction) {
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if(fieldToValidate == null) {
-                return false;
-            } else {
-                return !serviceFunction.apply(fieldToValidate).isEmpty();
-            }
-        };
+        return createServiceConstraint(ServiceLookup.of(serviceFunction), result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    // ----- batched "data" object validation
+
+    public <X> Constraint<CT> presentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, Optional.empty()), Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
+    }
+
+    public <X> Constraint<CT> absentUsingBatch(Function<Collection<FT>, Map<FT, Optional<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, Optional.empty()), Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
+    }
+
+    public <X> Constraint<CT> emptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, List.of()), Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
+    }
+
+    public <X> Constraint<CT> notEmptyUsingBatch(Function<Collection<FT>, Map<FT, Collection<X>>> batchServiceFunction, int chunkSize) {
+        return createServiceConstraint(ServiceLookup.ofBatch(batchServiceFunction, chunkSize, List.of()), result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    /**
+     * Creates a constraint that fails if the lookup result of the field value satisfies the given predicate.
+     */
+    private <V> Constraint<CT> createServiceConstraint(ServiceLookup<FT, V> serviceLookup, Predicate<V> isResultViolating,
+                                                       String failMessageContent, ViolationKindEnum violationKind) {
         return new Constraint<>(
-                isConstraintViolatedFunction,
-                getValidationFailMessageFunction(nonEmptyCollectionFailMessageDefault)
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null || !isResultViolating.test(context.lookup(serviceLookup, fieldToValidate))) {
+                        return null;
+                    }
+                    return createViolationDetails(objectToValidate, fieldToValidate, failMessageContent);
+                },
+                violationKind,
+                ConstraintCostEnum.SERVICE,
+                fieldGetter,
+                new ServiceBinding<>(serviceLookup, (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    return fieldToValidate == null ? null : List.of(fieldToValidate);
+                })
+        );
+    }
+
+    // ----- asynchronous "data" object validation
+
+    public <X> Constraint<CT> presentUsingAsync(Function<FT, CompletableFuture<Optional<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Optional::isEmpty,
+                existenceFailMessageDefault, ViolationKindEnum.DATA_ABSENT);
+    }
+
+    public <X> Constraint<CT> absentUsingAsync(Function<FT, CompletableFuture<Optional<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Optional::isPresent,
+                absenceFailMessageDefault, ViolationKindEnum.DATA_PRESENT);
+    }
+
+    public <X> Constraint<CT> emptyUsingAsync(Function<FT, CompletableFuture<Collection<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, Collection::isEmpty,
+                emptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_EMPTY);
+    }
+
+    public <X> Constraint<CT> notEmptyUsingAsync(Function<FT, CompletableFuture<Collection<X>>> asyncServiceFunction) {
+        return createAsyncServiceConstraint(asyncServiceFunction, result -> !result.isEmpty(),
+                nonEmptyCollectionFailMessageDefault, ViolationKindEnum.COLLECTION_NOT_EMPTY);
+    }
+
+    /**
+     * Creates a constraint that fails if the asynchronously looked up result of the field value satisfies the given
+     * predicate.
+     */
+    private <V> Constraint<CT> createAsyncServiceConstraint(Function<FT, CompletableFuture<V>> asyncServiceFunction,
+                                                            Predicate<V> isResultViolating,
+                                                            String failMessageContent, ViolationKindEnum violationKind) {
+        return Constraint.ofAsync(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return asyncServiceFunction.apply(fieldToValidate).thenApply(result -> isResultViolating.test(result)
+                            ? createViolationDetails(objectToValidate, fieldToValidate, failMessageContent)
+                            : null);
+                },
+                violationKind,
+                ConstraintCostEnum.SERVICE,
+                fieldGetter
         );
     }
 
     // ----- nested validator
 
     public Constraint<CT> noThrowsUsing(ThrowingConsumer<FT> fieldConsumer){
-        Function<CT, Boolean> isConstraintViolatedFunction = objectToValidate -> {
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if (fieldToValidate != null) {
-                try {
-                    fieldConsumer.accept(fieldToValidate);
-                } catch (Throwable e) {
-                    return true;
-                }
-            }
-            return false;
-        };
-        // When this function is actually called, fieldGetter.apply(objectToValidate) does not return null or an empty list (since isConstraintViolatedFunction evaluated to true)
-        Function<CT, String> getCustomFailMessageFunction = objectToValidate -> {
-            String throwMessage = "THIS MESSAGE SHOULD NEVER APPEAR";  // this value will be overwritten by the catch block which is expected to get triggered
-            FT fieldToValidate = fieldGetter.apply(objectToValidate);
-            if (fieldToValidate != null) {
-                try {
-                    fieldConsumer.accept(fieldToValidate);
-                } catch (Throwable e) {
-                    throwMessage = e.toString();
-                }
-                return String.format(
-                        "[object: %s, field value: %s]: An unwanted exception occurred (%s)",
-                        objectToValidate.getClass().getSimpleName(),
-                        fieldToValidate,
-                        throwMessage
-                );
-            } else {
-                return "";
-            }
-        };
         return new Constraint<>(
-                isConstraintViolatedFunction,
-                getCustomFailMessageFunction
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return null;
+                    }
+                    try {
+                        fieldConsumer.accept(fieldToValidate);
+                    } catch (Throwable e) {
+                        // the consumer is only executed once, so the violation carries the caught throwable
+                        return new ViolationDetails(
+                                e,
+                                EXCEPTION_FAIL_MESSAGE_TEMPLATE,
+                                objectToValidate.getClass().getSimpleName(),
+                                fieldToValidate,
+                                e
+                        );
+                    }
+                    return null;
+                },
+                ViolationKindEnum.EXCEPTION_THROWN,
+                ConstraintCostEnum.NESTED,
+                fieldGetter
+        );
+    }
+
+    public Constraint<CT> validWith(AbstractValidator<FT> validator) {
+        return new Constraint<>(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return null;
+                    }
+                    ValidationResult<FT> nestedResult = validator.validateToResult(fieldToValidate);
+                    if(nestedResult.isValid()) {
+                        return null;
+                    }
+                    NestedValidationResult nestedValidationResult = new NestedValidationResult("", nestedResult);
+                    return new ViolationDetails(
+                            List.of(nestedValidationResult),
+                            NESTED_FAIL_MESSAGE_TEMPLATE,
+                            objectToValidate.getClass().getSimpleName(),
+                            fieldToValidate,
+                            nestedValidationResult
+                    );
+                },
+                ViolationKindEnum.NESTED_VIOLATED,
+                ConstraintCostEnum.NESTED,
+                fieldGetter
         );
     }
 
@@ -135,22 +226,22 @@ public class ConstraintBuilderField<CT, FT> implements ServiceConstraintFinalize
      */
     public Constraint<CT> notNull() {
         return new Constraint<>(
-                objectToValidate ->
-                        fieldGetter.apply(objectToValidate) == null,
-                objectToValidate ->
-                        String.format("[object: %s, field value: %s]: Value of a required field was null",
-                                objectToValidate.getClass().getSimpleName(), fieldGetter.apply(objectToValidate)
-                        )
+                (objectToValidate, context) -> context.getFieldValue(fieldGetter, objectToValidate) == null
+                        ? createViolationDetails(objectToValidate, null, "Value of a required field was null")
+                        : null,
+                ViolationKindEnum.NULL_VALUE,
+                ConstraintCostEnum.FIELD,
+                fieldGetter
         );
     }
 
     // ----- Fail Messages
 
-    private Function<CT, String> getValidationFailMessageFunction(String failMessageContent) {
-        return objectToValidate -> String.format(
-                "[object: %s, field value: %s]: %s",
+    private ViolationDetails createViolationDetails(CT objectToValidate, FT fieldValue, String failMessageContent) {
+        return new ViolationDetails(
+                FIELD_FAIL_MESSAGE_TEMPLATE,
                 objectToValidate.getClass().getSimpleName(),
-                fieldGetter.apply(objectToValidate),
+                fieldValue,
                 failMessageContent
         );
     }
@@ -1,15 +1,21 @@
 package jb.validator.models;
 
+import jb.validator.constants.ConstraintCostEnum;
 import jb.validator.constants.ContentConstraintBoundTypeEnum;
+import jb.validator.constants.ViolationKindEnum;
 
 import java.util.Collection;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Builder used for creating a constraint concerning a field and some from that field derived target value.
  */
 public class ConstraintBuilderFinalCollectionItem<CT, IT, FT extends Collection<IT>, BT extends Comparable<BT>> implements BoundConstraintFinalizer<CT, BT>{
 
+    private static final MessageTemplate BOUND_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[object: %s, collection: %s]: The target value of every item must be %s %s");
+
     // --- internal fields for construction
     protected Function<IT, BT> targetGetter;
     protected ConstraintBuilderCollectionItem<CT, IT, FT> constraintBuilderCollectionItem;
@@ -24,70 +30,61 @@ public class ConstraintBuilderFinalCollectionItem<CT, IT, FT extends Collection<
     public Constraint<CT> isLessThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MAX;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isLessOrEqualThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MAXINCL;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isGreaterThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MIN;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isGreaterOrEqualThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MININCL;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isEqualTo(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.EXACT;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
 
     // ----- building
 
-    private Function<CT, Boolean> createBoundValidationFunction() {
-        return objectToValidate -> {
-            boolean isViolated;
-            FT fieldToValidate = constraintBuilderCollectionItem.fieldGetter.apply(objectToValidate);
-            if(fieldToValidate != null) {
-                isViolated = fieldToValidate.stream()
-                        .anyMatch(collectionItem ->
-                                boundType.getIsBoundBrokenFunction().apply(
-                                        targetGetter.apply(collectionItem).compareTo(boundValue)
-                                )
-                );
-            } else {
-                isViolated = false;
-            }
-            return isViolated;
-        };
-    }
-
-    private Function<CT, String> createBoundFailMessageFunction() {
-        int maxStringLength = 100;
-        String endPart = "...]";
-        return objectToValidate -> {
-            String collectionString = constraintBuilderCollectionItem.fieldGetter.apply(objectToValidate).toString();
-            if(collectionString.length() > maxStringLength) {
-                collectionString = collectionString.substring(0, maxStringLength - endPart.length()) + endPart;
-            }
-            return String.format(
-                    "[object: %s, collection: %s]: The target value of every item must be %s %s",
-                    objectToValidate.getClass().getSimpleName(),
-                    collectionString,
-                    boundType.getBoundAssertionString(),
-                    boundValue
-            );
-        };
+    private Constraint<CT> createBoundConstraint() {
+        ContentConstraintBoundTypeEnum boundType = this.boundType;
+        BT boundValue = this.boundValue;
+        Function<CT, FT> fieldGetter = constraintBuilderCollectionItem.fieldGetter;
+        CollectionScan collectionScan = constraintBuilderCollectionItem.collectionScan;
+        // created once per constraint instead of once per validation
+        Predicate<IT> isItemBoundBroken = collectionItem -> boundType.isBoundBroken(targetGetter.apply(collectionItem).compareTo(boundValue));
+        return new Constraint<>(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null || !collectionScan.anyMatch(fieldToValidate, isItemBoundBroken)) {
+                        return null;
+                    }
+                    return new ViolationDetails(
+                            BOUND_FAIL_MESSAGE_TEMPLATE,
+                            objectToValidate.getClass().getSimpleName(),
+                            ConstraintBuilderCollectionItem.abbreviateCollection(fieldToValidate),
+                            boundType.getBoundAssertionString(),
+                            boundValue
+                    );
+                },
+                ViolationKindEnum.BOUND_VIOLATED,
+                ConstraintCostEnum.COLLECTION,
+                fieldGetter
+        );
     }
 
 }
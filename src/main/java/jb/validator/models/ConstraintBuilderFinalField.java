@@ -1,6 +1,8 @@
 package jb.validator.models;
 
+import jb.validator.constants.ConstraintCostEnum;
 import jb.validator.constants.ContentConstraintBoundTypeEnum;
+import jb.validator.constants.ViolationKindEnum;
 
 import java.util.function.Function;
 
@@ -9,6 +11,9 @@ import java.util.function.Function;
  */
 public class ConstraintBuilderFinalField<CT, FT, BT extends Comparable<BT>> implements BoundConstraintFinalizer<CT, BT>{
 
+    private static final MessageTemplate BOUND_FAIL_MESSAGE_TEMPLATE =
+            MessageTemplate.of("[object: %s, field value: %s]: Target value must be %s %s but was %s");
+
     // --- internal fields for construction
     protected Function<FT, BT> targetGetter;
     protected ConstraintBuilderField<CT, FT> constraintBuilderField;
@@ -25,58 +30,61 @@ public class ConstraintBuilderFinalField<CT, FT, BT extends Comparable<BT>> impl
     public Constraint<CT> isLessThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MAX;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isLessOrEqualThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MAXINCL;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isGreaterThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MIN;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isGreaterOrEqualThan(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.MININCL;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     public Constraint<CT> isEqualTo(BT boundValue) {
         this.boundValue = boundValue;
         this.boundType = ContentConstraintBoundTypeEnum.EXACT;
-        return new Constraint<>(createBoundValidationFunction(), createBoundFailMessageFunction());
+        return createBoundConstraint();
     }
 
     // --------- private functions
 
-    private Function<CT, Boolean> createBoundValidationFunction() {
-        return objectToValidate -> {
-            boolean isViolated;
-            FT fieldToValidate = constraintBuilderField.fieldGetter.apply(objectToValidate);
-            if(fieldToValidate != null) {
-                isViolated = boundType.getIsBoundBrokenFunction().apply(
-                        targetGetter.apply(fieldToValidate).compareTo(boundValue)
-                );
-            } else {
-                isViolated = false;
-            }
-            return isViolated;
-        };
-    }
-
-    private Function<CT, String> createBoundFailMessageFunction() {
-        return objectToValidate -> String.format(
-                "[object: %s, field value: %s]: Target value must be %s %s but was %s",
-                objectToValidate.getClass().getSimpleName(),
-                constraintBuilderField.fieldGetter.apply(objectToValidate),
-                boundType.getBoundAssertionString(),
-                boundValue,
-                constraintBuilderField.fieldGetter.andThen(targetGetter).apply(objectToValidate)
+    private Constraint<CT> createBoundConstraint() {
+        ContentConstraintBoundTypeEnum boundType = this.boundType;
+        BT boundValue = this.boundValue;
+        Function<CT, FT> fieldGetter = constraintBuilderField.fieldGetter;
+        return new Constraint<>(
+                (objectToValidate, context) -> {
+                    FT fieldToValidate = context.getFieldValue(fieldGetter, objectToValidate);
+                    if(fieldToValidate == null) {
+                        return null;
+                    }
+                    BT targetValue = context.getTargetValue(fieldGetter, targetGetter, fieldToValidate);
+                    if(!boundType.isBoundBroken(targetValue.compareTo(boundValue))) {
+                        return null;
+                    }
+                    return new ViolationDetails(
+                            BOUND_FAIL_MESSAGE_TEMPLATE,
+                            objectToValidate.getClass().getSimpleName(),
+                            fieldToValidate,
+                            boundType.getBoundAssertionString(),
+                            boundValue,
+                            targetValue
+                    );
+                },
+                ViolationKindEnum.BOUND_VIOLATED,
+                ConstraintCostEnum.FIELD,
+                fieldGetter
         );
     }
 
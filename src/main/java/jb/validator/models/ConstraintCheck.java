@@ -0,0 +1,18 @@
+package jb.validator.models;
+
+/**
+ * Evaluation step of a constraint.
+ * @param <CT> type of the object to validate.
+ */
+@FunctionalInterface
+interface ConstraintCheck<CT> {
+
+    /**
+     * Checks the given object.
+     * @param objectToValidate object under validation.
+     * @param context context of the current validation, used to obtain field values.
+     * @return details of the detected violation or null if the constraint holds.
+     */
+    ViolationDetails check(CT objectToValidate, ValidationContext context);
+
+}
@@ -0,0 +1,72 @@
+package jb.validator.models;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Lock-free evaluation and failure counters for the constraints of a validation plan.
+ * The counters are striped (LongAdder), so concurrently validating threads do not contend on a shared variable.
+ * The statistics are used to derive an execution order running constraints that are likely to fail and cheap to
+ * evaluate first.
+ */
+final class ConstraintStatistics {
+
+    private final LongAdder[] evaluationCounters;
+    private final LongAdder[] failureCounters;
+
+    ConstraintStatistics(int constraintCount) {
+        this.evaluationCounters = new LongAdder[constraintCount];
+        this.failureCounters = new LongAdder[constraintCount];
+        for(int i = 0; i < constraintCount; i++) {
+            evaluationCounters[i] = new LongAdder();
+            failureCounters[i] = new LongAdder();
+        }
+    }
+
+    void recordEvaluation(int constraintIndex, boolean isViolated) {
+        evaluationCounters[constraintIndex].increment();
+        if(isViolated) {
+            failureCounters[constraintIndex].increment();
+        }
+    }
+
+    long getEvaluationCount(int constraintIndex) {
+        return evaluationCounters[constraintIndex].sum();
+    }
+
+    long getFailureCount(int constraintIndex) {
+        return failureCounters[constraintIndex].sum();
+    }
+
+    /**
+     * Computes an execution order ascending by the expected cost of finding a violation, which is the relative cost
+     * of a constraint divided by its (smoothed) observed failure rate. Ties keep the declaration order.
+     * @param constraints constraints of the plan in declaration order.
+     * @return the indices of the given constraints in the computed order.
+     */
+    int[] computeExecutionOrder(List<? extends Constraint<?>> constraints) {
+        double[] scores = new double[constraints.size()];
+        for(int i = 0; i < scores.length; i++) {
+            double failureRate = (getFailureCount(i) + 1d) / (getEvaluationCount(i) + 2d);
+            scores[i] = constraints.get(i).getCostClass().getRelativeCost() / failureRate;
+        }
+        return IntStream.range(0, scores.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(index -> scores[index]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ConstraintStatistics[evaluations=%s, failures=%s]",
+                Arrays.toString(evaluationCounters),
+                Arrays.toString(failureCounters)
+        );
+    }
+
+}
@@ -0,0 +1,127 @@
+package jb.validator.models;
+
+import jb.validator.constants.ViolationKindEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable description of a single violated constraint.
+ * The violation only holds the message template of the violated constraint and the values captured during its
+ * evaluation. The message is rendered lazily on the first call of getMessage() and cached afterwards.
+ * Violations of constraints validating nested objects with another validator (see validWith) carry the violations of
+ * the nested validation, located by a path prefixed with the path of this violation.
+ * @param <CT> type of the object that violated the constraint.
+ */
+public final class ConstraintViolation<CT> {
+
+    private static final MessageTemplate VIOLATION_MESSAGE_TEMPLATE = MessageTemplate.of("Constraint %s was violated %s");
+
+    private final Constraint<CT> constraint;
+    private final ViolationDetails violationDetails;
+    private final ViolationKindEnum violationKind;
+    private final String pathPrefix;
+
+    private String message;
+
+    ConstraintViolation(Constraint<CT> constraint, ViolationDetails violationDetails) {
+        this(constraint, violationDetails, constraint.getViolationKind(), "");
+    }
+
+    /**
+     * Creates a violation of a kind other than the constraint's kind, e.g. for a constraint that timed out.
+     */
+    ConstraintViolation(Constraint<CT> constraint, ViolationDetails violationDetails, ViolationKindEnum violationKind) {
+        this(constraint, violationDetails, violationKind, "");
+    }
+
+    private ConstraintViolation(Constraint<CT> constraint, ViolationDetails violationDetails, ViolationKindEnum violationKind,
+                                String pathPrefix) {
+        this.constraint = constraint;
+        this.violationDetails = violationDetails;
+        this.violationKind = violationKind;
+        this.pathPrefix = pathPrefix;
+    }
+
+    /**
+     * @return the constraint that was violated.
+     */
+    public Constraint<CT> getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * @return the name of the violated constraint or "ANONYMOUS" if the constraint was not named.
+     */
+    public String getConstraintName() {
+        return constraint.getConstraintName();
+    }
+
+    /**
+     * @return the kind of this violation. This is the kind of the violated constraint, unless the constraint could not
+     *  be evaluated completely (see ViolationKindEnum.TIMED_OUT and ViolationKindEnum.INDETERMINATE).
+     */
+    public ViolationKindEnum getViolationKind() {
+        return violationKind;
+    }
+
+    /**
+     * @return the throwable caught while evaluating the constraint (e.g. the exception thrown by a nested validator
+     *  passed to noThrowsUsing), or null if the violation was not caused by an exception.
+     */
+    public Throwable getCause() {
+        return violationDetails.getCause();
+    }
+
+    /**
+     * @return the path of this violation. For violations of a validator's own constraints, this is the constraint name.
+     *  For nested violations, the name is prefixed by the path of the enclosing violation and, for collection items, the
+     *  item index, e.g. "orderLinesValid[2].quantityPositive".
+     */
+    public String getPath() {
+        return pathPrefix + constraint.getConstraintName();
+    }
+
+    /**
+     * @return the violations of the nested validations performed by this violation's constraint with paths prefixed
+     *  by the path of this violation. The list is empty if the constraint does not validate nested objects.
+     */
+    public List<ConstraintViolation<?>> getNestedViolations() {
+        List<NestedValidationResult> nestedResults = violationDetails.getNestedResults();
+        if(nestedResults.isEmpty()) {
+            return List.of();
+        }
+        String path = getPath();
+        List<ConstraintViolation<?>> nestedViolations = new ArrayList<>();
+        for(NestedValidationResult nestedResult : nestedResults) {
+            String nestedPathPrefix = path + nestedResult.getPathSegment() + ".";
+            for(ConstraintViolation<?> nestedViolation : nestedResult.getValidationResult().getViolations()) {
+                nestedViolations.add(nestedViolation.withPathPrefix(nestedPathPrefix));
+            }
+        }
+        return nestedViolations;
+    }
+
+    private ConstraintViolation<CT> withPathPrefix(String nestedPathPrefix) {
+        return new ConstraintViolation<>(constraint, violationDetails, violationKind, nestedPathPrefix + pathPrefix);
+    }
+
+    /**
+     * Renders the message of this violation. The message is only built when this method is called for the first time.
+     * @return an informative message describing this violation.
+     */
+    public String getMessage() {
+        String renderedMessage = message;
+        if(renderedMessage == null) {
+            renderedMessage = VIOLATION_MESSAGE_TEMPLATE.render(constraint.getConstraintName(), violationDetails.renderMessage());
+            message = renderedMessage;
+        }
+        return renderedMessage;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+
+}
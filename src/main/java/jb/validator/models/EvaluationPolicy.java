@@ -0,0 +1,183 @@
+package jb.validator.models;
+
+import jb.validator.constants.FallbackOutcomeEnum;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Defines how many constraints of a validator are evaluated. Constraints are evaluated until the configured number
+ * of violations has been found, so expensive constraints (e.g. service lookups) following an already violated
+ * constraint can be skipped.
+ * A policy may additionally limit the duration of a validation (see withDeadline) and evaluate the constraints of
+ * large validators in parallel (see inParallel).
+ */
+public final class EvaluationPolicy {
+
+    private static final EvaluationPolicy EVALUATE_ALL = new EvaluationPolicy(Integer.MAX_VALUE);
+    private static final EvaluationPolicy FAIL_FAST = new EvaluationPolicy(1);
+
+    private final int maxViolations;
+    private final Duration deadline;
+    private final FallbackOutcomeEnum deadlineOutcome;
+    private final Executor deadlineExecutor;
+    private final Executor parallelExecutor;
+    private final int parallelCostThreshold;
+
+    private EvaluationPolicy(int maxViolations) {
+        this(maxViolations, null, null, null, null, 0);
+    }
+
+    private EvaluationPolicy(int maxViolations, Duration deadline, FallbackOutcomeEnum deadlineOutcome,
+                             Executor deadlineExecutor, Executor parallelExecutor, int parallelCostThreshold) {
+        this.maxViolations = maxViolations;
+        this.deadline = deadline;
+        this.deadlineOutcome = deadlineOutcome;
+        this.deadlineExecutor = deadlineExecutor;
+        this.parallelExecutor = parallelExecutor;
+        this.parallelCostThreshold = parallelCostThreshold;
+    }
+
+    /**
+     * @return a policy evaluating every constraint, reporting all violations.
+     */
+    public static EvaluationPolicy evaluateAll() {
+        return EVALUATE_ALL;
+    }
+
+    /**
+     * @return a policy that stops the evaluation at the first violation.
+     */
+    public static EvaluationPolicy failFast() {
+        return FAIL_FAST;
+    }
+
+    /**
+     * @param maxViolations number of violations after which the evaluation stops. Must be positive.
+     * @return a policy that stops the evaluation after the given number of violations.
+     */
+    public static EvaluationPolicy maxViolations(int maxViolations) {
+        if(maxViolations < 1) {
+            throw new IllegalArgumentException(String.format("maxViolations must be positive but was %s", maxViolations));
+        }
+        if(maxViolations == 1) {
+            return FAIL_FAST;
+        }
+        return maxViolations == Integer.MAX_VALUE ? EVALUATE_ALL : new EvaluationPolicy(maxViolations);
+    }
+
+    /**
+     * Creates a copy of this policy limiting the duration of every validation to the given deadline. Constraints that
+     * are not started before the deadline has passed, and nested or service-backed constraints that do not complete
+     * before it, result in the given outcome. Cheaper constraints are never interrupted, the deadline is checked
+     * before each of them.
+     * Nested and service-backed constraints run on a bounded shared pool while the deadline applies (see
+     * Constraint.withTimeout), unless their service results are known already.
+     * @param deadline maximal duration of a validation. Must be positive.
+     * @param deadlineOutcome outcome of the constraints that could not be evaluated within the deadline.
+     * @return a policy with the same violation limit as this policy and the given deadline.
+     */
+    public EvaluationPolicy withDeadline(Duration deadline, FallbackOutcomeEnum deadlineOutcome) {
+        return createWithDeadline(deadline, deadlineOutcome, null);
+    }
+
+    /**
+     * Creates a copy of this policy limiting the duration of every validation to the given deadline (see
+     * withDeadline(Duration, FallbackOutcomeEnum)), running the constraints bound by the deadline on the given
+     * executor. Constraints rejected by the executor, e.g. by a bounded ThreadPoolExecutor whose threads are all busy,
+     * result in the given outcome.
+     * @param deadline maximal duration of a validation. Must be positive.
+     * @param deadlineOutcome outcome of the constraints that could not be evaluated within the deadline or were rejected.
+     * @param deadlineExecutor executor running the constraints bound by the deadline.
+     * @return a policy with the same violation limit as this policy and the given deadline.
+     */
+    public EvaluationPolicy withDeadline(Duration deadline, FallbackOutcomeEnum deadlineOutcome, Executor deadlineExecutor) {
+        return createWithDeadline(deadline, deadlineOutcome, Objects.requireNonNull(deadlineExecutor));
+    }
+
+    private EvaluationPolicy createWithDeadline(Duration deadline, FallbackOutcomeEnum deadlineOutcome,
+                                                Executor deadlineExecutor) {
+        if(deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException(String.format("deadline must be positive but was %s", deadline));
+        }
+        return new EvaluationPolicy(maxViolations, deadline, Objects.requireNonNull(deadlineOutcome), deadlineExecutor,
+                parallelExecutor, parallelCostThreshold);
+    }
+
+    /**
+     * Creates a copy of this policy evaluating the constraints of a validator in parallel using the given executor
+     * (e.g. a ForkJoinPool or an executor of virtual threads), if the summed relative cost of its constraints (see
+     * ConstraintCostEnum) reaches the given threshold. Smaller validators are evaluated sequentially, since splitting
+     * them would cost more than it saves.
+     * Nested and service-backed constraints are evaluated as separate tasks, cheaper constraints are grouped. The
+     * violations are reported in declaration order, as in a sequential evaluation. Service result scopes (see
+     * AbstractValidator.isServiceResultCachingEnabled()) extend to all tasks of a validation, whereas field values are
+     * only memoized within a task: a getter shared by constraints of different tasks is invoked once per task.
+     * @param parallelExecutor executor running the tasks of a parallel evaluation.
+     * @param parallelCostThreshold minimal summed relative cost of the constraints of a validator evaluated in parallel.
+     * @return a policy with the same violation limit and deadline as this policy, evaluating in parallel.
+     */
+    public EvaluationPolicy inParallel(Executor parallelExecutor, int parallelCostThreshold) {
+        if(parallelCostThreshold < 0) {
+            throw new IllegalArgumentException(
+                    String.format("parallelCostThreshold must not be negative but was %s", parallelCostThreshold));
+        }
+        return new EvaluationPolicy(maxViolations, deadline, deadlineOutcome, deadlineExecutor,
+                Objects.requireNonNull(parallelExecutor), parallelCostThreshold);
+    }
+
+    public int getMaxViolations() {
+        return maxViolations;
+    }
+
+    public boolean isEvaluatingAll() {
+        return maxViolations == Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the maximal duration of a validation, or null if the duration is not limited.
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return the outcome of constraints that could not be evaluated within the deadline, or null if there is none.
+     */
+    public FallbackOutcomeEnum getDeadlineOutcome() {
+        return deadlineOutcome;
+    }
+
+    /**
+     * @return the executor of the constraints bound by the deadline, or null if the shared pool is used.
+     */
+    public Executor getDeadlineExecutor() {
+        return deadlineExecutor;
+    }
+
+    /**
+     * @return the executor of parallel evaluations, or null if constraints are evaluated sequentially.
+     */
+    public Executor getParallelExecutor() {
+        return parallelExecutor;
+    }
+
+    public int getParallelCostThreshold() {
+        return parallelCostThreshold;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("EvaluationPolicy[")
+                .append(isEvaluatingAll() ? "all" : String.format("maxViolations=%s", maxViolations));
+        if(deadline != null) {
+            description.append(String.format(", deadline=%s, deadlineOutcome=%s", deadline, deadlineOutcome));
+        }
+        if(parallelExecutor != null) {
+            description.append(String.format(", parallelCostThreshold=%s", parallelCostThreshold));
+        }
+        return description.append("]").toString();
+    }
+
+}
@@ -0,0 +1,111 @@
+package jb.validator.models;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates instances of the cause exception type returned by AbstractValidator.exceptionSupplier().
+ * The constructors are resolved only once into method handles, preferring a constructor taking the error message and
+ * falling back to the no-argument constructor.
+ */
+final class ExceptionCauseFactory {
+
+    private static final MethodType MESSAGE_CONSTRUCTOR_TYPE = MethodType.methodType(void.class, String.class);
+    private static final MethodType DEFAULT_CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+
+    private final Class<? extends Throwable> exceptionType;
+    private final MethodHandle messageConstructor;
+    private final MethodHandle defaultConstructor;
+    private final String sharedInstanceMessage;
+    private final String messagePrefix;
+
+    private volatile Throwable sharedInstance;
+
+    private ExceptionCauseFactory(Class<? extends Throwable> exceptionType, MethodHandle messageConstructor,
+                                  MethodHandle defaultConstructor, String sharedInstanceMessage) {
+        this.exceptionType = exceptionType;
+        this.messageConstructor = messageConstructor;
+        this.defaultConstructor = defaultConstructor;
+        this.sharedInstanceMessage = sharedInstanceMessage;
+        this.messagePrefix = exceptionType == null ? "" : "(Associated with " + exceptionType.getSimpleName() + ") ";
+    }
+
+    /**
+     * Resolves the constructors of the given exception type.
+     * @param exceptionType exception type, may be null.
+     * @param sharedInstanceMessage message of the shared instance (see getSharedInstance()).
+     * @return a factory for the given type. If the type is null or provides no usable constructor, the factory creates no
+     *  instances at all.
+     */
+    static ExceptionCauseFactory resolve(Class<? extends Throwable> exceptionType, String sharedInstanceMessage) {
+        if(exceptionType == null) {
+            return new ExceptionCauseFactory(null, null, null, sharedInstanceMessage);
+        }
+        return new ExceptionCauseFactory(
+                exceptionType,
+                findConstructor(exceptionType, MESSAGE_CONSTRUCTOR_TYPE),
+                findConstructor(exceptionType, DEFAULT_CONSTRUCTOR_TYPE),
+                sharedInstanceMessage
+        );
+    }
+
+    private static MethodHandle findConstructor(Class<? extends Throwable> exceptionType, MethodType constructorType) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(exceptionType, constructorType).asType(
+                    constructorType.changeReturnType(Throwable.class)
+            );
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+    Class<? extends Throwable> getExceptionType() {
+        return exceptionType;
+    }
+
+    /**
+     * @return the prefix of the messages of ValidatorExceptions caused by an instance of the exception type.
+     */
+    String getMessagePrefix() {
+        return messagePrefix;
+    }
+
+    /**
+     * Creates a new instance of the exception type using the given message if possible.
+     * @param message message of the created exception.
+     * @return the created exception or null if no instance could be created.
+     */
+    Throwable create(String message) {
+        if(messageConstructor != null) {
+            try {
+                return (Throwable) messageConstructor.invokeExact(message);
+            } catch (Throwable ignored) {
+                // fall back to the default constructor
+            }
+        }
+        if(defaultConstructor != null) {
+            try {
+                return (Throwable) defaultConstructor.invokeExact();
+            } catch (Throwable ignored) {
+                // no instance can be created
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an instance of the exception type that is created once, with the message given on resolution, and shared
+     * afterwards.
+     * @return the shared exception or null if no instance could be created.
+     */
+    Throwable getSharedInstance() {
+        Throwable instance = sharedInstance;
+        if(instance == null && exceptionType != null) {
+            instance = create(sharedInstanceMessage);
+            sharedInstance = instance;
+        }
+        return instance;
+    }
+
+}
@@ -0,0 +1,62 @@
+package jb.validator.models;
+
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Maps equal method references to a single canonical getter instance. Validation contexts memoize field and target
+ * values by getter instance (see ValidationContext), so constraints built from separate occurrences of the same method
+ * reference (e.g. two calls of Constraint.forField(MyObject::getId)) share a single getter invocation per validation.
+ * Only non-capturing serializable functions are canonicalized; lambdas with a body have a method of their own and are
+ * never equal to another lambda.
+ */
+final class GetterRegistry {
+
+    private static final Object NO_METHOD_KEY = new Object();
+
+    private static final Map<Class<?>, Object> METHOD_KEYS_BY_CLASS = new ConcurrentHashMap<>();
+    private static final Map<Object, Function<?, ?>> CANONICAL_GETTERS = new ConcurrentHashMap<>();
+
+    private GetterRegistry() {
+    }
+
+    /**
+     * @return the canonical instance of the given getter, which is the first registered getter referring to the same
+     *  method, or the given getter itself if it cannot be canonicalized.
+     */
+    @SuppressWarnings("unchecked")
+    static <T, R> Function<T, R> canonicalize(SerializableFunction<T, R> getter) {
+        Object methodKey = METHOD_KEYS_BY_CLASS.computeIfAbsent(getter.getClass(), getterClass -> resolveMethodKey(getter));
+        if(methodKey == NO_METHOD_KEY) {
+            return getter;
+        }
+        return (Function<T, R>) CANONICAL_GETTERS.computeIfAbsent(methodKey, key -> getter);
+    }
+
+    /**
+     * @return the class, name and signature of the method the given getter refers to, or NO_METHOD_KEY if the getter
+     *  captures values or its method cannot be determined.
+     */
+    private static Object resolveMethodKey(SerializableFunction<?, ?> getter) {
+        try {
+            Method writeReplace = getter.getClass().getDeclaredMethod("writeReplace");
+            writeReplace.setAccessible(true);
+            Object replacement = writeReplace.invoke(getter);
+            if(!(replacement instanceof SerializedLambda)) {
+                return NO_METHOD_KEY;
+            }
+            SerializedLambda serializedLambda = (SerializedLambda) replacement;
+            if(serializedLambda.getCapturedArgCount() > 0) {
+                return NO_METHOD_KEY;
+            }
+            return serializedLambda.getImplMethodKind() + " " + serializedLambda.getImplClass() + "."
+                    + serializedLambda.getImplMethodName() + serializedLambda.getImplMethodSignature();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return NO_METHOD_KEY;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package jb.validator.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pre-parsed message template using "%s" as argument placeholder ("%%" renders a single "%").
+ * The template is parsed once when it is created, so rendering a message only appends the literal parts and the string
+ * representations of the arguments, without parsing a format string on every call like String.format does.
+ */
+final class MessageTemplate {
+
+    private final String[] literals;
+
+    private MessageTemplate(String[] literals) {
+        this.literals = literals;
+    }
+
+    /**
+     * Parses the given pattern.
+     * @param pattern message pattern containing "%s" placeholders.
+     * @return the parsed template.
+     */
+    static MessageTemplate of(String pattern) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for(int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if(c == '%' && i + 1 < pattern.length()) {
+                char next = pattern.charAt(i + 1);
+                if(next == 's') {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    i++;
+                    continue;
+                } else if(next == '%') {
+                    literal.append('%');
+                    i++;
+                    continue;
+                }
+            }
+            literal.append(c);
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(new String[0]));
+    }
+
+    int getArgumentCount() {
+        return literals.length - 1;
+    }
+
+    /**
+     * Renders this template with the given arguments. Missing arguments are rendered as "null".
+     * @param arguments values that replace the placeholders of this template in order.
+     * @return the rendered message.
+     */
+    String render(Object... arguments) {
+        StringBuilder messageBuilder = new StringBuilder(64);
+        messageBuilder.append(literals[0]);
+        for(int i = 1; i < literals.length; i++) {
+            Object argument = arguments != null && i - 1 < arguments.length ? arguments[i - 1] : null;
+            messageBuilder.append(argument).append(literals[i]);
+        }
+        return messageBuilder.toString();
+    }
+
+    // ----- deferred arguments
+
+    /**
+     * Creates an argument whose string representation is computed only when a message is rendered.
+     * @param messageSupplier supplier of the string representation.
+     * @return a deferred message argument.
+     */
+    static Object lazy(Supplier<String> messageSupplier) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return messageSupplier.get();
+            }
+        };
+    }
+
+    /**
+     * Creates an argument whose string representation is abbreviated to the given length when a message is rendered.
+     * @param value value to render.
+     * @param maxLength maximal length of the rendered value including the end part.
+     * @param endPart string appended to abbreviated values.
+     * @return a deferred message argument.
+     */
+    static Object abbreviated(Object value, int maxLength, String endPart) {
+        return lazy(() -> {
+            String valueString = String.valueOf(value);
+            if(valueString.length() > maxLength) {
+                valueString = valueString.substring(0, maxLength - endPart.length()) + endPart;
+            }
+            return valueString;
+        });
+    }
+
+}
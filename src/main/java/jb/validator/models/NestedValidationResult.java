@@ -0,0 +1,32 @@
+package jb.validator.models;
+
+/**
+ * Result of a nested validation captured by a constraint, together with the path segment that locates the validated
+ * value relative to the constraint (an empty segment for a field, "[index]" for an item of a collection).
+ */
+final class NestedValidationResult {
+
+    private final String pathSegment;
+    private final ValidationResult<?> validationResult;
+
+    NestedValidationResult(String pathSegment, ValidationResult<?> validationResult) {
+        this.pathSegment = pathSegment;
+        this.validationResult = validationResult;
+    }
+
+    String getPathSegment() {
+        return pathSegment;
+    }
+
+    ValidationResult<?> getValidationResult() {
+        return validationResult;
+    }
+
+    @Override
+    public String toString() {
+        return pathSegment.isEmpty()
+                ? validationResult.getMessage()
+                : String.format("%s: %s", pathSegment, validationResult.getMessage());
+    }
+
+}
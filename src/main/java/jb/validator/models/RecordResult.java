@@ -0,0 +1,43 @@
+package jb.validator.models;
+
+/**
+ * Result of the validation of a single record of a stream of records (see AbstractValidator.validateEach).
+ * @param <CT> type of the validated records.
+ */
+public final class RecordResult<CT> {
+
+    private final long recordIndex;
+    private final CT record;
+    private final ValidationResult<CT> validationResult;
+
+    RecordResult(long recordIndex, CT record, ValidationResult<CT> validationResult) {
+        this.recordIndex = recordIndex;
+        this.record = record;
+        this.validationResult = validationResult;
+    }
+
+    /**
+     * @return the zero-based position of the record within its stream.
+     */
+    public long getRecordIndex() {
+        return recordIndex;
+    }
+
+    public CT getRecord() {
+        return record;
+    }
+
+    public ValidationResult<CT> getValidationResult() {
+        return validationResult;
+    }
+
+    public boolean isValid() {
+        return validationResult.isValid();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RecordResult[%s: %s]", recordIndex, validationResult);
+    }
+
+}
@@ -0,0 +1,15 @@
+package jb.validator.models;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * Serializable getter function. Lambdas and method references passed as a SerializableFunction expose the method they
+ * refer to, so constraint builders can recognize equal method references (e.g. two occurrences of MyObject::getId) and
+ * let them share a single memoized getter invocation (see GetterRegistry).
+ * @param <T> type of the argument.
+ * @param <R> type of the result.
+ */
+@FunctionalInterface
+public interface SerializableFunction<T, R> extends Function<T, R>, Serializable {
+}
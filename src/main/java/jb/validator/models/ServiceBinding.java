@@ -0,0 +1,62 @@
+package jb.validator.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Links a service-backed constraint to its lookup and to the keys it looks up for a given object, so a batch
+ * validation can look up the keys of all objects with a single lookup before the constraint is evaluated.
+ * @param <CT> type of the object under validation.
+ * @param <K> type of the looked up keys.
+ */
+final class ServiceBinding<CT, K> {
+
+    private final ServiceLookup<K, ?> serviceLookup;
+    private final BiFunction<CT, ValidationContext, Collection<? extends K>> keysGetter;
+
+    /**
+     * @param keysGetter returns the keys the constraint looks up for an object, or null if nothing is looked up.
+     */
+    ServiceBinding(ServiceLookup<K, ?> serviceLookup, BiFunction<CT, ValidationContext, Collection<? extends K>> keysGetter) {
+        this.serviceLookup = serviceLookup;
+        this.keysGetter = keysGetter;
+    }
+
+    /**
+     * Looks up the keys of all objects that are not finished yet in the given cache. Single-key lookups are not
+     * prefetched, since a constraint might stop at its first failing key; they are still deduplicated by the cache.
+     */
+    void prefetch(List<CT> objectsToValidate, ValidationContext[] contexts, boolean[] isFinished,
+                  ServiceResultCache serviceResults) {
+        if(!serviceLookup.isBatched()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>();
+        for(int i = 0; i < objectsToValidate.size(); i++) {
+            if(isFinished[i]) {
+                continue;
+            }
+            Collection<? extends K> objectKeys = keysGetter.apply(objectsToValidate.get(i), contexts[i]);
+            if(objectKeys != null) {
+                keys.addAll(objectKeys);
+            }
+        }
+        serviceResults.prefetch(serviceLookup, keys);
+    }
+
+    /**
+     * @return true if the keys the constraint looks up for the given object are known to the service results of the
+     *  given context already, e.g. because they were prefetched, so evaluating the constraint does not call the service.
+     */
+    boolean isResolved(CT objectToValidate, ValidationContext context) {
+        ServiceResultCache serviceResults = context.getServiceResults();
+        if(serviceResults == null) {
+            return false;
+        }
+        Collection<? extends K> keys = keysGetter.apply(objectToValidate, context);
+        return keys == null || serviceResults.containsAll(serviceLookup, keys);
+    }
+
+}
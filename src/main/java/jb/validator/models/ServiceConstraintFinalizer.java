@@ -76,4 +76,18 @@ public interface ServiceConstraintFinalizer<CT, FT> {
      */
     Constraint<CT> noThrowsUsing(ThrowingConsumer<FT> fieldConsumer);
 
+    /**
+     * Creates a constraint validating the earlier defined field value with the given validator. Unlike
+     * noThrowsUsing(myValidatorInstance::validate), the nested validation does not throw: the violations of the nested
+     * validator are kept in the resulting violation (see ConstraintViolation.getNestedViolations()) with paths prefixed
+     * by the name of this constraint.
+     * The default implementation falls back to noThrowsUsing(validator::validate), so implementations predating this
+     * method keep compiling.
+     * @param validator validator for the field value.
+     * @return a constraint that will fail if the nested validation reports any violation.
+     */
+    default Constraint<CT> validWith(AbstractValidator<FT> validator) {
+        return noThrowsUsing(validator::validate);
+    }
+
 }
@@ -0,0 +1,106 @@
+package jb.validator.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service function used by a service-backed constraint, either looking up a single key per call or looking up a
+ * collection of keys per call (e.g. a repository's findAllByIdIn).
+ * Batched lookups deduplicate their keys and split them into chunks of a configurable size, so one call is issued per
+ * chunk instead of one call per key. Keys missing in the map returned by a batch function are mapped to the configured
+ * absent value (e.g. an empty optional).
+ * @param <K> type of the looked up keys.
+ * @param <V> type of the lookup results.
+ */
+final class ServiceLookup<K, V> {
+
+    private final Function<K, V> serviceFunction;
+    private final Function<Collection<K>, Map<K, V>> batchServiceFunction;
+    private final int chunkSize;
+    private final V absentValue;
+
+    private ServiceLookup(Function<K, V> serviceFunction, Function<Collection<K>, Map<K, V>> batchServiceFunction,
+                          int chunkSize, V absentValue) {
+        this.serviceFunction = serviceFunction;
+        this.batchServiceFunction = batchServiceFunction;
+        this.chunkSize = chunkSize;
+        this.absentValue = absentValue;
+    }
+
+    static <K, V> ServiceLookup<K, V> of(Function<K, V> serviceFunction) {
+        return new ServiceLookup<>(Objects.requireNonNull(serviceFunction), null, 1, null);
+    }
+
+    static <K, V> ServiceLookup<K, V> ofBatch(Function<Collection<K>, Map<K, V>> batchServiceFunction, int chunkSize,
+                                              V absentValue) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException(String.format("chunkSize must be positive but was %s", chunkSize));
+        }
+        return new ServiceLookup<>(null, Objects.requireNonNull(batchServiceFunction), chunkSize, absentValue);
+    }
+
+    /**
+     * @return the wrapped single-key or batch service function. Results of lookups are cached per function instance.
+     */
+    Object getServiceFunction() {
+        return isBatched() ? batchServiceFunction : serviceFunction;
+    }
+
+    boolean isBatched() {
+        return batchServiceFunction != null;
+    }
+
+    /**
+     * Looks up a single key.
+     */
+    V lookup(K key) {
+        if(!isBatched()) {
+            return serviceFunction.apply(key);
+        }
+        Map<K, V> results = batchServiceFunction.apply(List.of(key));
+        return results == null ? absentValue : results.getOrDefault(key, absentValue);
+    }
+
+    /**
+     * Looks up all given keys. Duplicate keys are looked up only once and null keys are ignored.
+     * @return the results of all given keys.
+     */
+    Map<K, V> lookupAll(Collection<? extends K> keys) {
+        Set<K> distinctKeys = new LinkedHashSet<>(keys);
+        distinctKeys.remove(null);
+        Map<K, V> results = new HashMap<>();
+        if(!isBatched()) {
+            for(K key : distinctKeys) {
+                results.put(key, serviceFunction.apply(key));
+            }
+            return results;
+        }
+        List<K> chunk = new ArrayList<>(Math.min(chunkSize, distinctKeys.size()));
+        for(K key : distinctKeys) {
+            chunk.add(key);
+            if(chunk.size() == chunkSize) {
+                lookupChunk(chunk, results);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if(!chunk.isEmpty()) {
+            lookupChunk(chunk, results);
+        }
+        return results;
+    }
+
+    private void lookupChunk(List<K> chunk, Map<K, V> results) {
+        Map<K, V> chunkResults = batchServiceFunction.apply(chunk);
+        for(K key : chunk) {
+            results.put(key, chunkResults == null ? absentValue : chunkResults.getOrDefault(key, absentValue));
+        }
+    }
+
+}
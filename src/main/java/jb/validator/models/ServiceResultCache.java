@@ -0,0 +1,242 @@
+package jb.validator.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Results of service lookups shared by all objects of a single batch validation (see AbstractValidator.validateAll) or,
+ * if enabled by the validator, by all constraints of a single validation (see
+ * AbstractValidator.isServiceResultCachingEnabled()).
+ * Results are stored per service function instance and key, so every distinct key is looked up only once per scope.
+ * A scope is bound to the thread running the validation, so nested validations on the same thread (e.g. validWith or
+ * noThrowsUsing) share the results of the outermost validation.
+ * Instances are thread-safe, so time-limited checks (see Constraint.withTimeout) and tasks of parallel evaluations
+ * (see EvaluationPolicy.inParallel) running on other threads share the results of the validation they belong to.
+ * Lookups are performed outside of the lock; a thread needing a key that another thread is looking up waits for that
+ * lookup instead of looking the key up again.
+ */
+final class ServiceResultCache {
+
+    private static final ThreadLocal<ServiceResultCache> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private final Map<Object, Map<Object, Object>> resultsByServiceFunction = new IdentityHashMap<>();
+
+    /**
+     * @return the cache of the scope opened on the current thread, or null if no scope is open.
+     */
+    static ServiceResultCache current() {
+        return CURRENT_SCOPE.get();
+    }
+
+    /**
+     * Opens a new scope on the current thread, unless a scope is open already, in which case that scope is joined.
+     * @return the cache of the opened scope, or null if an open scope was joined.
+     */
+    static ServiceResultCache openScope() {
+        if(CURRENT_SCOPE.get() != null) {
+            return null;
+        }
+        ServiceResultCache serviceResults = new ServiceResultCache();
+        CURRENT_SCOPE.set(serviceResults);
+        return serviceResults;
+    }
+
+    /**
+     * Closes the scope opened by the corresponding call of openScope(). Joined scopes (null) are left open.
+     */
+    static void closeScope(ServiceResultCache openedServiceResults) {
+        if(openedServiceResults != null) {
+            CURRENT_SCOPE.remove();
+        }
+    }
+
+    /**
+     * Binds the given cache to the current thread, e.g. to a worker thread continuing a validation, so nested
+     * validations on that thread share its results.
+     * @param serviceResults cache to bind, or null to unbind.
+     * @return the cache bound to the current thread before, to be restored with restoreScope.
+     */
+    static ServiceResultCache bindScope(ServiceResultCache serviceResults) {
+        ServiceResultCache previousServiceResults = CURRENT_SCOPE.get();
+        restoreScope(serviceResults);
+        return previousServiceResults;
+    }
+
+    /**
+     * Restores the cache returned by the corresponding call of bindScope.
+     */
+    static void restoreScope(ServiceResultCache previousServiceResults) {
+        if(previousServiceResults == null) {
+            CURRENT_SCOPE.remove();
+        } else {
+            CURRENT_SCOPE.set(previousServiceResults);
+        }
+    }
+
+    /**
+     * Returns the cached result of the given key, looking it up if it has not been looked up yet.
+     */
+    @SuppressWarnings("unchecked")
+    <K, V> V get(ServiceLookup<K, V> serviceLookup, K key) {
+        PendingLookup pendingLookup;
+        synchronized (this) {
+            Map<Object, Object> results = getResults(serviceLookup);
+            Object result = results.get(key);
+            if(result instanceof PendingLookup) {
+                pendingLookup = (PendingLookup) result;
+            } else if(result != null || results.containsKey(key)) {
+                return (V) result;
+            } else {
+                pendingLookup = null;
+                results.put(key, new PendingLookup());
+            }
+        }
+        if(pendingLookup != null) {
+            return (V) pendingLookup.await();
+        }
+        Map<K, V> lookedUpResults = complete(serviceLookup, Collections.singletonList(key), () -> {
+            Map<K, V> singleResult = new HashMap<>();
+            singleResult.put(key, serviceLookup.lookup(key));
+            return singleResult;
+        });
+        return lookedUpResults.get(key);
+    }
+
+    /**
+     * Returns the cached results of the given keys, looking up all keys that have not been looked up yet at once.
+     * @return a map containing the results of all given non-null keys.
+     */
+    @SuppressWarnings("unchecked")
+    <K, V> Map<K, V> getAll(ServiceLookup<K, V> serviceLookup, Collection<? extends K> keys) {
+        prefetch(serviceLookup, keys);
+        Map<K, V> requestedResults = new HashMap<>();
+        Map<K, PendingLookup> pendingLookups = new HashMap<>();
+        synchronized (this) {
+            Map<Object, Object> results = getResults(serviceLookup);
+            for(K key : keys) {
+                if(key != null) {
+                    Object result = results.get(key);
+                    if(result instanceof PendingLookup) {
+                        pendingLookups.put(key, (PendingLookup) result);
+                    } else {
+                        requestedResults.put(key, (V) result);
+                    }
+                }
+            }
+        }
+        pendingLookups.forEach((key, pendingLookup) -> requestedResults.put(key, (V) pendingLookup.await()));
+        return requestedResults;
+    }
+
+    /**
+     * Looks up all given keys that have not been looked up yet with a single (possibly chunked) lookup. Keys being
+     * looked up by another thread are not waited for.
+     */
+    <K, V> void prefetch(ServiceLookup<K, V> serviceLookup, Collection<? extends K> keys) {
+        List<K> missingKeys = new ArrayList<>();
+        synchronized (this) {
+            Map<Object, Object> results = getResults(serviceLookup);
+            for(K key : keys) {
+                if(key != null && !results.containsKey(key)) {
+                    results.put(key, new PendingLookup());
+                    missingKeys.add(key);
+                }
+            }
+        }
+        if(!missingKeys.isEmpty()) {
+            complete(serviceLookup, missingKeys, () -> serviceLookup.lookupAll(missingKeys));
+        }
+    }
+
+    /**
+     * Looks up the given keys, which the current thread has marked as pending, stores the results and releases the
+     * threads waiting for them. If the lookup fails, the keys are unmarked again and the waiting threads fail with the
+     * same exception.
+     * @return the looked up results.
+     */
+    private <K, V> Map<K, V> complete(ServiceLookup<K, V> serviceLookup, List<K> pendingKeys, Supplier<Map<K, V>> lookup) {
+        Map<K, V> lookedUpResults;
+        try {
+            lookedUpResults = lookup.get();
+        } catch (RuntimeException | Error e) {
+            for(PendingLookup pendingLookup : replacePending(serviceLookup, pendingKeys, null)) {
+                pendingLookup.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+        List<PendingLookup> completedLookups = replacePending(serviceLookup, pendingKeys, lookedUpResults);
+        for(int i = 0; i < pendingKeys.size(); i++) {
+            completedLookups.get(i).result.complete(lookedUpResults.get(pendingKeys.get(i)));
+        }
+        return lookedUpResults;
+    }
+
+    /**
+     * Replaces the placeholders of the given keys by their results, or removes them if results is null.
+     * @return the replaced placeholders, in the order of the given keys.
+     */
+    private synchronized <K> List<PendingLookup> replacePending(ServiceLookup<K, ?> serviceLookup, List<K> pendingKeys,
+                                                               Map<K, ?> lookedUpResults) {
+        Map<Object, Object> results = getResults(serviceLookup);
+        List<PendingLookup> pendingLookups = new ArrayList<>(pendingKeys.size());
+        for(K key : pendingKeys) {
+            Object pendingLookup = lookedUpResults == null ? results.remove(key) : results.put(key, lookedUpResults.get(key));
+            pendingLookups.add((PendingLookup) pendingLookup);
+        }
+        return pendingLookups;
+    }
+
+    /**
+     * @return true if all given non-null keys have been looked up already.
+     */
+    synchronized <K> boolean containsAll(ServiceLookup<K, ?> serviceLookup, Collection<? extends K> keys) {
+        Map<Object, Object> results = getResults(serviceLookup);
+        for(K key : keys) {
+            if(key != null && (!results.containsKey(key) || results.get(key) instanceof PendingLookup)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<Object, Object> getResults(ServiceLookup<?, ?> serviceLookup) {
+        return resultsByServiceFunction.computeIfAbsent(serviceLookup.getServiceFunction(), serviceFunction -> new HashMap<>());
+    }
+
+    /**
+     * Placeholder of a key that is being looked up by some thread.
+     */
+    private static final class PendingLookup {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        /**
+         * Waits for the result of the lookup.
+         * @throws CancellationException if the waiting thread is interrupted, e.g. because its time budget is exhausted.
+         */
+        Object await() {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for a pending service lookup");
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw (Error) e.getCause();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package jb.validator.models;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs constraint checks with a time budget. Blocking checks are executed on a worker thread, so the validating thread
+ * can stop waiting once the budget is exhausted; the abandoned check is interrupted.
+ * Unless an executor is configured (see Constraint.withTimeout and EvaluationPolicy.withDeadline), checks run on a
+ * shared pool of at most DEFAULT_MAX_THREADS daemon threads. The pool does not queue checks: while all of its threads
+ * are busy, e.g. with abandoned checks ignoring the interrupt, further checks are rejected instead of spawning threads.
+ */
+final class TimeLimitedExecution {
+
+    static final int DEFAULT_MAX_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final Executor DEFAULT_EXECUTOR = new ThreadPoolExecutor(
+            0, DEFAULT_MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "validator-time-limited-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private TimeLimitedExecution() {
+    }
+
+    /**
+     * Runs the given task on the given executor and waits for its result at most the given time.
+     * @param executor executor running the task, or null to use the shared pool.
+     * @throws TimeoutException if the task did not complete in time, in which case it is interrupted, or if the
+     *  executor rejected the task, e.g. because it is saturated.
+     */
+    static <T> T call(Callable<T> task, Executor executor, long timeoutNanos) throws TimeoutException {
+        if(timeoutNanos <= 0) {
+            throw new TimeoutException();
+        }
+        FutureTask<T> future = new FutureTask<>(task);
+        try {
+            (executor == null ? DEFAULT_EXECUTOR : executor).execute(future);
+        } catch (RejectedExecutionException e) {
+            TimeoutException timeoutException = new TimeoutException("The executor rejected the constraint check");
+            timeoutException.initCause(e);
+            throw timeoutException;
+        }
+        return await(future, timeoutNanos);
+    }
+
+    /**
+     * Waits for the given future at most the given time.
+     * @throws TimeoutException if the future did not complete in time. The future is cancelled.
+     */
+    static <T> T await(Future<T> future, long timeoutNanos) throws TimeoutException {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a constraint check");
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package jb.validator.models;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterator validating the records of a source iterator on demand. At most maxInFlight records are read ahead of the
+ * consumer, so memory stays bounded for sources of any length and a slow consumer slows down reading (pull-based
+ * backpressure). With a worker pool, the records read ahead are validated concurrently, while results are still
+ * returned in source order.
+ * @param <CT> type of the validated records.
+ */
+final class ValidatingIterator<CT> implements Iterator<RecordResult<CT>> {
+
+    private final Iterator<? extends CT> records;
+    private final AbstractValidator<CT> validator;
+    private final Executor workerPool;
+    private final int maxInFlight;
+    private final ArrayDeque<CompletableFuture<RecordResult<CT>>> pendingResults;
+
+    private long nextRecordIndex;
+
+    /**
+     * @param workerPool pool validating the records, or null to validate them on the consuming thread.
+     * @param maxInFlight maximal number of records read ahead of the consumer. Must be positive.
+     */
+    ValidatingIterator(Iterator<? extends CT> records, AbstractValidator<CT> validator, Executor workerPool, int maxInFlight) {
+        if(maxInFlight < 1) {
+            throw new IllegalArgumentException(String.format("maxInFlight must be positive but was %s", maxInFlight));
+        }
+        this.records = records;
+        this.validator = validator;
+        this.workerPool = workerPool;
+        this.maxInFlight = maxInFlight;
+        this.pendingResults = new ArrayDeque<>(maxInFlight);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !pendingResults.isEmpty() || records.hasNext();
+    }
+
+    @Override
+    public RecordResult<CT> next() {
+        fillWindow();
+        CompletableFuture<RecordResult<CT>> pendingResult = pendingResults.poll();
+        if(pendingResult == null) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return pendingResult.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void fillWindow() {
+        int windowSize = workerPool == null ? 1 : maxInFlight;
+        while(pendingResults.size() < windowSize && records.hasNext()) {
+            CT record = records.next();
+            long recordIndex = nextRecordIndex++;
+            pendingResults.add(workerPool == null
+                    ? CompletableFuture.completedFuture(validate(recordIndex, record))
+                    : CompletableFuture.supplyAsync(() -> validate(recordIndex, record), workerPool));
+        }
+    }
+
+    private RecordResult<CT> validate(long recordIndex, CT record) {
+        return new RecordResult<>(recordIndex, record, validator.validateToResult(record));
+    }
+
+}
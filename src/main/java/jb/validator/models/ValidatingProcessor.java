@@ -0,0 +1,234 @@
+package jb.validator.models;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reactive-streams processor validating the records of an upstream publisher and publishing one RecordResult per
+ * record to a single subscriber. Records are requested from upstream only in response to the demand of the subscriber,
+ * and at most bufferCapacity records are requested ahead of it, so a slow (or not yet attached) subscriber throttles
+ * the upstream publisher (backpressure) and memory stays bounded.
+ * Records are validated concurrently by the given executor, which also delivers the results in upstream order; the
+ * thread delivering a record is never blocked.
+ * @param <CT> type of the validated records.
+ */
+final class ValidatingProcessor<CT> implements Flow.Processor<CT, RecordResult<CT>> {
+
+    private final AbstractValidator<CT> validator;
+    private final Executor executor;
+    private final int bufferCapacity;
+
+    private final Queue<CompletableFuture<RecordResult<CT>>> pendingResults = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicReference<Flow.Subscriber<? super RecordResult<CT>>> claimedSubscriber = new AtomicReference<>();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super RecordResult<CT>> downstream;
+    private volatile boolean isUpstreamDone;
+    private volatile boolean isCancelled;
+
+    // accessed by upstream signals only, which are delivered serially
+    private long nextRecordIndex;
+
+    // accessed by the drain loop only, which runs serially
+    private long emitted;
+    private long upstreamRequested;
+    private boolean isTerminated;
+    private boolean isUpstreamCancelled;
+
+    ValidatingProcessor(AbstractValidator<CT> validator, Executor executor, int bufferCapacity) {
+        if(bufferCapacity < 1) {
+            throw new IllegalArgumentException(String.format("bufferCapacity must be positive but was %s", bufferCapacity));
+        }
+        this.validator = validator;
+        this.executor = executor;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Attaches the single subscriber of this processor. Further subscribers are rejected with an IllegalStateException.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super RecordResult<CT>> subscriber) {
+        if(!claimedSubscriber.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The processor supports a single subscriber only"));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if(upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    /**
+     * Starts the validation of the given record on the executor, without waiting for it.
+     */
+    @Override
+    public void onNext(CT record) {
+        long recordIndex = nextRecordIndex++;
+        CompletableFuture<RecordResult<CT>> resultFuture;
+        try {
+            resultFuture = CompletableFuture.supplyAsync(
+                    () -> new RecordResult<>(recordIndex, record, validator.validateToResult(record)), executor);
+        } catch (RejectedExecutionException e) {
+            resultFuture = CompletableFuture.failedFuture(e);
+        }
+        pendingResults.add(resultFuture);
+        resultFuture.whenComplete((recordResult, throwable) -> drain());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error.compareAndSet(null, throwable);
+        isUpstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        isUpstreamDone = true;
+        drain();
+    }
+
+    /**
+     * Schedules the drain loop on the executor, unless it is running already, in which case it runs once more.
+     */
+    private void drain() {
+        if(drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            executor.execute(this::drainLoop);
+        } catch (RejectedExecutionException e) {
+            drainLoop();
+        }
+    }
+
+    private void drainLoop() {
+        int missedDrainRequests = 1;
+        do {
+            drainOnce();
+            missedDrainRequests = drainRequests.addAndGet(-missedDrainRequests);
+        } while(missedDrainRequests != 0);
+    }
+
+    /**
+     * Delivers the completed results in upstream order as far as demanded, delivers terminal signals and requests
+     * further records from upstream. All calls of the upstream subscription and the subscriber happen here.
+     */
+    private void drainOnce() {
+        if(isTerminated || isCancelled) {
+            terminate();
+            return;
+        }
+        Flow.Subscriber<? super RecordResult<CT>> subscriber = downstream;
+        if(subscriber == null) {
+            return;
+        }
+        long demand = requested.get();
+        while(emitted < demand) {
+            CompletableFuture<RecordResult<CT>> resultFuture = pendingResults.peek();
+            if(resultFuture == null || !resultFuture.isDone()) {
+                break;
+            }
+            pendingResults.poll();
+            RecordResult<CT> recordResult;
+            try {
+                recordResult = resultFuture.join();
+            } catch (CompletionException | CancellationException e) {
+                terminate();
+                subscriber.onError(e instanceof CompletionException ? e.getCause() : e);
+                return;
+            }
+            emitted++;
+            subscriber.onNext(recordResult);
+            if(isCancelled) {
+                terminate();
+                return;
+            }
+        }
+        Throwable throwable = error.get();
+        if(throwable != null) {
+            terminate();
+            subscriber.onError(throwable);
+            return;
+        }
+        if(isUpstreamDone && pendingResults.isEmpty()) {
+            terminate();
+            subscriber.onComplete();
+            return;
+        }
+        Flow.Subscription subscription = upstream;
+        if(subscription != null && !isUpstreamDone) {
+            long missing = Math.min(demand - emitted, bufferCapacity) - (upstreamRequested - emitted);
+            if(missing > 0) {
+                upstreamRequested += missing;
+                subscription.request(missing);
+            }
+        }
+    }
+
+    /**
+     * Cancels the upstream subscription, also if it is attached later, and drops all pending results. The subscriber
+     * is not signalled.
+     */
+    private void terminate() {
+        isTerminated = true;
+        pendingResults.clear();
+        Flow.Subscription subscription = upstream;
+        if(subscription != null && !isUpstreamCancelled && !isUpstreamDone) {
+            isUpstreamCancelled = true;
+            subscription.cancel();
+        }
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                error.compareAndSet(null, new IllegalArgumentException(String.format("n must be positive but was %s", n)));
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+            drain();
+        }
+
+    }
+
+}
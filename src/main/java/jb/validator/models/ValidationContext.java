@@ -0,0 +1,173 @@
+package jb.validator.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * State of a single validation of one object, passed to every constraint check of a plan.
+ * A memoizing context evaluates each field getter (and each target getter applied to the value of a field getter) only
+ * once per validation, identifying getters by instance. Constraints created from the same builder, from the same
+ * getter instance or from equal method references (see GetterRegistry) therefore share a single getter invocation.
+ * Memoizing contexts are pooled per thread, so a validation does not allocate a new context unless validations are
+ * nested on the same thread.
+ * Contexts of a batch validation, and all contexts within an open service result scope, additionally share the results
+ * of service lookups (see ServiceResultCache).
+ */
+final class ValidationContext {
+
+    /** Context applying getters directly without memoization. */
+    static final ValidationContext DIRECT = new ValidationContext(false, null);
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final ThreadLocal<ValidationContext> POOLED_CONTEXT = ThreadLocal.withInitial(() -> new ValidationContext(true, null));
+
+    private final boolean isMemoizing;
+    private final ServiceResultCache serviceResults;
+
+    private Object[] getterKeys;
+    private Object[] targetGetterKeys;
+    private Object[] values;
+    private int size;
+    private boolean isInUse;
+
+    private ValidationContext(boolean isMemoizing, ServiceResultCache serviceResults) {
+        this.isMemoizing = isMemoizing;
+        this.serviceResults = serviceResults;
+        if(isMemoizing) {
+            this.getterKeys = new Object[INITIAL_CAPACITY];
+            this.targetGetterKeys = new Object[INITIAL_CAPACITY];
+            this.values = new Object[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * @return a memoizing context for a new validation. Must be released after the validation has finished.
+     */
+    static ValidationContext acquireMemoizing() {
+        ValidationContext context = POOLED_CONTEXT.get();
+        if(context.isInUse) {
+            context = new ValidationContext(true, null);
+        }
+        context.isInUse = true;
+        return context;
+    }
+
+    /**
+     * @return a new memoizing context for the validation of one object of a batch, sharing the given service results.
+     */
+    static ValidationContext createForBatch(ServiceResultCache serviceResults) {
+        return new ValidationContext(true, serviceResults);
+    }
+
+    /**
+     * Creates a context continuing this validation on another thread (see Constraint.withTimeout). The new context
+     * starts with the values memoized so far and shares the service results of this context; values memoized by the
+     * new context are not propagated back.
+     */
+    ValidationContext copyForWorker() {
+        ValidationContext workerContext = new ValidationContext(true, serviceResults);
+        for(int i = 0; i < size; i++) {
+            workerContext.put(getterKeys[i], targetGetterKeys[i], values[i]);
+        }
+        return workerContext;
+    }
+
+    /**
+     * Clears all memoized values, so the validated object and its field values are not retained by the pool.
+     */
+    void release() {
+        if(isMemoizing) {
+            Arrays.fill(getterKeys, 0, size, null);
+            Arrays.fill(targetGetterKeys, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+            isInUse = false;
+        }
+    }
+
+    /**
+     * Applies the given field getter to the object under validation, or returns the value memoized for this getter.
+     */
+    @SuppressWarnings("unchecked")
+    <CT, FT> FT getFieldValue(Function<CT, FT> fieldGetter, CT objectToValidate) {
+        if(!isMemoizing) {
+            return fieldGetter.apply(objectToValidate);
+        }
+        int index = indexOf(fieldGetter, null);
+        if(index >= 0) {
+            return (FT) values[index];
+        }
+        FT fieldValue = fieldGetter.apply(objectToValidate);
+        put(fieldGetter, null, fieldValue);
+        return fieldValue;
+    }
+
+    /**
+     * Applies the given target getter to the value of the given field getter, or returns the value memoized for this
+     * pair of getters.
+     */
+    @SuppressWarnings("unchecked")
+    <FT, BT> BT getTargetValue(Function<?, FT> fieldGetter, Function<FT, BT> targetGetter, FT fieldValue) {
+        if(!isMemoizing) {
+            return targetGetter.apply(fieldValue);
+        }
+        int index = indexOf(fieldGetter, targetGetter);
+        if(index >= 0) {
+            return (BT) values[index];
+        }
+        BT targetValue = targetGetter.apply(fieldValue);
+        put(fieldGetter, targetGetter, targetValue);
+        return targetValue;
+    }
+
+    /**
+     * Looks up the given key, or returns the result shared by the current batch or service result scope.
+     */
+    <K, V> V lookup(ServiceLookup<K, V> serviceLookup, K key) {
+        ServiceResultCache currentServiceResults = getServiceResults();
+        return currentServiceResults == null ? serviceLookup.lookup(key) : currentServiceResults.get(serviceLookup, key);
+    }
+
+    /**
+     * Looks up all given keys, or returns the results shared by the current batch or service result scope.
+     * @return a map containing (at least) the results of all given non-null keys.
+     */
+    <K, V> Map<K, V> lookupAll(ServiceLookup<K, V> serviceLookup, Collection<? extends K> keys) {
+        ServiceResultCache currentServiceResults = getServiceResults();
+        return currentServiceResults == null
+                ? serviceLookup.lookupAll(keys)
+                : currentServiceResults.getAll(serviceLookup, keys);
+    }
+
+    /**
+     * @return the service results shared by the current batch or service result scope, or null if there are none.
+     */
+    ServiceResultCache getServiceResults() {
+        return serviceResults != null ? serviceResults : ServiceResultCache.current();
+    }
+
+    private int indexOf(Object getterKey, Object targetGetterKey) {
+        for(int i = 0; i < size; i++) {
+            if(getterKeys[i] == getterKey && targetGetterKeys[i] == targetGetterKey) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void put(Object getterKey, Object targetGetterKey, Object value) {
+        if(size == values.length) {
+            getterKeys = Arrays.copyOf(getterKeys, size * 2);
+            targetGetterKeys = Arrays.copyOf(targetGetterKeys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        getterKeys[size] = getterKey;
+        targetGetterKeys[size] = targetGetterKey;
+        values[size] = value;
+        size++;
+    }
+
+}
@@ -0,0 +1,57 @@
+package jb.validator.models;
+
+import jb.validator.constants.FallbackOutcomeEnum;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Point in time at which a running validation has to be finished (see EvaluationPolicy.withDeadline).
+ */
+final class ValidationDeadline {
+
+    private final Duration duration;
+    private final FallbackOutcomeEnum outcome;
+    private final Executor executor;
+    private final long deadlineNanos;
+
+    private ValidationDeadline(Duration duration, FallbackOutcomeEnum outcome, Executor executor) {
+        this.duration = duration;
+        this.outcome = outcome;
+        this.executor = executor;
+        this.deadlineNanos = System.nanoTime() + duration.toNanos();
+    }
+
+    /**
+     * @return the deadline of a validation starting now, or null if the given policy does not limit its duration.
+     */
+    static ValidationDeadline start(EvaluationPolicy evaluationPolicy) {
+        Duration deadline = evaluationPolicy.getDeadline();
+        return deadline == null ? null : new ValidationDeadline(deadline, evaluationPolicy.getDeadlineOutcome(),
+                evaluationPolicy.getDeadlineExecutor());
+    }
+
+    long getRemainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    boolean isExpired() {
+        return getRemainingNanos() <= 0;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    FallbackOutcomeEnum getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the executor of the constraints bound by this deadline, or null to use the shared pool.
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+}
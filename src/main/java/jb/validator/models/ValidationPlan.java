@@ -0,0 +1,412 @@
+package jb.validator.models;
+
+import jb.validator.constants.ConstraintCostEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Compiled and immutable representation of the constraint set of a validator.
+ * A plan is built once from the collection returned by AbstractValidator.constraintSupplier() and is reused for every
+ * subsequent validation, so the constraints (and their builders and lambda chains) are not re-allocated per call.
+ * Constraints are executed in ascending order of their cost class (see ConstraintCostEnum), keeping the declaration
+ * order within the same class. Violations are always reported in declaration order.
+ * An adaptive plan additionally tracks how often each constraint fails and periodically reorders its execution, so
+ * constraints that are likely to fail and cheap to evaluate run first.
+ * If several constraints share the same field getter instance, the plan memoizes field (and target) values for the
+ * duration of a single validation, so every shared getter is invoked only once per validated object.
+ * Batches of objects are evaluated column-wise, i.e. constraint by constraint across all objects of the batch, so that
+ * every batched service lookup is issued once for the distinct keys of the whole batch.
+ * Asynchronous constraints are started one after another without awaiting their results, so their service lookups run
+ * concurrently during an asynchronous evaluation.
+ * Time budgets of constraints (see Constraint.withTimeout) and deadlines of evaluation policies apply to every kind of
+ * evaluation; the deadline of a batch evaluation limits the evaluation of the whole batch.
+ * Policies created with EvaluationPolicy.inParallel split the constraints of large plans into tasks evaluated
+ * concurrently.
+ * @param <CT> Class type of the objects that are validated with this plan.
+ */
+public final class ValidationPlan<CT> {
+
+    /** Expected number of validations between two reorderings of an adaptive plan. */
+    private static final int ADAPTIVE_REORDER_INTERVAL = 1024;
+
+    private final List<Constraint<CT>> constraints;
+    private final ConstraintStatistics statistics;
+    private final boolean isMemoizingFieldValues;
+    private final long totalCost;
+
+    private volatile int[] executionOrder;
+
+    private ValidationPlan(List<Constraint<CT>> constraints, boolean isAdaptive) {
+        this.constraints = constraints;
+        this.statistics = isAdaptive ? new ConstraintStatistics(constraints.size()) : null;
+        this.isMemoizingFieldValues = hasSharedFieldGetters(constraints);
+        this.totalCost = constraints.stream().mapToLong(constraint -> constraint.getCostClass().getRelativeCost()).sum();
+        this.executionOrder = IntStream.range(0, constraints.size())
+                .boxed()
+                .sorted(Comparator.comparing(index -> constraints.get(index).getCostClass()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Compiles the given constraints into a plan. A null collection results in an empty plan.
+     * @param constraints constraints as returned by a constraint supplier.
+     * @param isAdaptive whether the execution order should be adapted to observed failure rates.
+     * @param <CT> type of the objects under validation.
+     * @return an immutable plan containing the given constraints in their original order.
+     */
+    static <CT> ValidationPlan<CT> compile(Collection<Constraint<CT>> constraints, boolean isAdaptive) {
+        if(constraints == null) {
+            return new ValidationPlan<>(List.of(), false);
+        }
+        return new ValidationPlan<>(List.copyOf(constraints), isAdaptive);
+    }
+
+    private static <CT> boolean hasSharedFieldGetters(List<Constraint<CT>> constraints) {
+        Set<Object> fieldGetters = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Constraint<CT> constraint : constraints) {
+            Object fieldGetter = constraint.getFieldGetter();
+            if(fieldGetter != null && !fieldGetters.add(fieldGetter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the constraints of this plan in declaration order. The returned list is unmodifiable.
+     */
+    public List<Constraint<CT>> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * @return the constraints of this plan in the order in which they are executed. The returned list is unmodifiable.
+     */
+    public List<Constraint<CT>> getConstraintsInExecutionOrder() {
+        int[] currentExecutionOrder = executionOrder;
+        List<Constraint<CT>> orderedConstraints = new ArrayList<>(currentExecutionOrder.length);
+        for(int index : currentExecutionOrder) {
+            orderedConstraints.add(constraints.get(index));
+        }
+        return List.copyOf(orderedConstraints);
+    }
+
+    public boolean isEmpty() {
+        return constraints.isEmpty();
+    }
+
+    public boolean isAdaptive() {
+        return statistics != null;
+    }
+
+    /**
+     * @return true if field values are memoized during a validation, since some constraints share a field getter.
+     */
+    public boolean isMemoizingFieldValues() {
+        return isMemoizingFieldValues;
+    }
+
+    /**
+     * Evaluates the constraints of this plan against the given object until the number of violations allowed by the
+     * given policy is reached. No messages are rendered and, if no constraint is violated, nothing is allocated.
+     * @param objectToValidate object that should be validated.
+     * @param evaluationPolicy policy defining when the evaluation stops.
+     * @return the result of the validation.
+     */
+    ValidationResult<CT> evaluate(CT objectToValidate, EvaluationPolicy evaluationPolicy) {
+        if(evaluationPolicy.getParallelExecutor() != null && constraints.size() > 1
+                && totalCost >= evaluationPolicy.getParallelCostThreshold()) {
+            return evaluateInParallel(objectToValidate, evaluationPolicy);
+        }
+        int maxViolations = evaluationPolicy.getMaxViolations();
+        ConstraintViolation<CT>[] violationsByIndex = null;
+        int violationCount = 0;
+        ValidationDeadline deadline = ValidationDeadline.start(evaluationPolicy);
+        ValidationContext context = isMemoizingFieldValues ? ValidationContext.acquireMemoizing() : ValidationContext.DIRECT;
+        try {
+            for(int index : executionOrder) {
+                ConstraintViolation<CT> violation = constraints.get(index).evaluate(objectToValidate, context, deadline);
+                if(statistics != null) {
+                    statistics.recordEvaluation(index, violation != null);
+                }
+                if(violation != null) {
+                    if(violationsByIndex == null) {
+                        violationsByIndex = newViolationArray(constraints.size());
+                    }
+                    violationsByIndex[index] = violation;
+                    if(++violationCount >= maxViolations) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            context.release();
+        }
+        if(statistics != null && ThreadLocalRandom.current().nextInt(ADAPTIVE_REORDER_INTERVAL) == 0) {
+            executionOrder = statistics.computeExecutionOrder(constraints);
+        }
+        return violationsByIndex == null ? ValidationResult.valid() : toResult(violationsByIndex, violationCount);
+    }
+
+    /**
+     * Evaluates the constraints of this plan against the given object, starting all asynchronous constraints without
+     * awaiting them. Synchronous constraints are evaluated immediately. Once the violations allowed by the given policy
+     * are reached, no further constraints are started; if the started asynchronous constraints exceed the allowed
+     * violations, only the violations of the constraints executed first are reported.
+     * @param objectToValidate object that should be validated.
+     * @param evaluationPolicy policy defining when the evaluation stops.
+     * @return a future of the result of the validation, completing once all started constraints have completed.
+     */
+    CompletableFuture<ValidationResult<CT>> evaluateAsync(CT objectToValidate, EvaluationPolicy evaluationPolicy) {
+        int maxViolations = evaluationPolicy.getMaxViolations();
+        int[] currentExecutionOrder = executionOrder;
+        ConstraintViolation<CT>[] violationsByIndex = newViolationArray(constraints.size());
+        List<CompletableFuture<Void>> pendingEvaluations = new ArrayList<>();
+        int violationCount = 0;
+        ValidationDeadline deadline = ValidationDeadline.start(evaluationPolicy);
+        ValidationContext context = isMemoizingFieldValues ? ValidationContext.acquireMemoizing() : ValidationContext.DIRECT;
+        try {
+            for(int index : currentExecutionOrder) {
+                Constraint<CT> constraint = constraints.get(index);
+                if(constraint.isAsync()) {
+                    pendingEvaluations.add(constraint.evaluateAsync(objectToValidate, context, deadline).thenAccept(violation -> {
+                        if(statistics != null) {
+                            statistics.recordEvaluation(index, violation != null);
+                        }
+                        violationsByIndex[index] = violation;
+                    }));
+                    continue;
+                }
+                ConstraintViolation<CT> violation = constraint.evaluate(objectToValidate, context, deadline);
+                if(statistics != null) {
+                    statistics.recordEvaluation(index, violation != null);
+                }
+                if(violation != null) {
+                    violationsByIndex[index] = violation;
+                    if(++violationCount >= maxViolations) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            context.release();
+        }
+        return CompletableFuture.allOf(pendingEvaluations.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> toLimitedResult(violationsByIndex, currentExecutionOrder, maxViolations));
+    }
+
+    /**
+     * Evaluates the constraints of this plan against the given object using the parallel executor of the given policy.
+     * Nested and service-backed constraints form a task of their own, consecutive cheaper constraints are grouped into
+     * tasks of about the cost of a nested constraint. The first task runs on the calling thread. Once the violations
+     * allowed by the policy are reached, tasks do not start further constraints; surplus violations of constraints
+     * running concurrently are dropped in execution order.
+     * Tasks on other threads share the service result scope open on the calling thread (see ServiceResultCache), but
+     * each task memoizes field values in a context of its own, so a getter shared by constraints of different tasks
+     * is invoked once per task.
+     */
+    private ValidationResult<CT> evaluateInParallel(CT objectToValidate, EvaluationPolicy evaluationPolicy) {
+        int maxViolations = evaluationPolicy.getMaxViolations();
+        int[] currentExecutionOrder = executionOrder;
+        ConstraintViolation<CT>[] violationsByIndex = newViolationArray(constraints.size());
+        AtomicInteger violationCount = new AtomicInteger();
+        ValidationDeadline deadline = ValidationDeadline.start(evaluationPolicy);
+        ServiceResultCache scopeServiceResults = ServiceResultCache.current();
+        List<int[]> tasks = splitIntoTasks(currentExecutionOrder);
+        List<CompletableFuture<Void>> pendingTasks = new ArrayList<>(tasks.size() - 1);
+        for(int[] task : tasks.subList(1, tasks.size())) {
+            pendingTasks.add(CompletableFuture.runAsync(() -> {
+                ServiceResultCache previousServiceResults = ServiceResultCache.bindScope(scopeServiceResults);
+                try {
+                    evaluateTask(objectToValidate, task, deadline, violationsByIndex, violationCount, maxViolations);
+                } finally {
+                    ServiceResultCache.restoreScope(previousServiceResults);
+                }
+            }, evaluationPolicy.getParallelExecutor()));
+        }
+        evaluateTask(objectToValidate, tasks.get(0), deadline, violationsByIndex, violationCount, maxViolations);
+        try {
+            CompletableFuture.allOf(pendingTasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+        if(statistics != null && ThreadLocalRandom.current().nextInt(ADAPTIVE_REORDER_INTERVAL) == 0) {
+            executionOrder = statistics.computeExecutionOrder(constraints);
+        }
+        return toLimitedResult(violationsByIndex, currentExecutionOrder, maxViolations);
+    }
+
+    /**
+     * Splits the given execution order into tasks, each holding the indices of the constraints it evaluates.
+     */
+    private List<int[]> splitIntoTasks(int[] currentExecutionOrder) {
+        int taskCostLimit = ConstraintCostEnum.NESTED.getRelativeCost();
+        List<int[]> tasks = new ArrayList<>();
+        int taskStart = 0;
+        int taskCost = 0;
+        for(int i = 0; i < currentExecutionOrder.length; i++) {
+            int cost = constraints.get(currentExecutionOrder[i]).getCostClass().getRelativeCost();
+            if(i > taskStart && taskCost + cost > taskCostLimit) {
+                tasks.add(Arrays.copyOfRange(currentExecutionOrder, taskStart, i));
+                taskStart = i;
+                taskCost = 0;
+            }
+            taskCost += cost;
+        }
+        tasks.add(Arrays.copyOfRange(currentExecutionOrder, taskStart, currentExecutionOrder.length));
+        return tasks;
+    }
+
+    private void evaluateTask(CT objectToValidate, int[] task, ValidationDeadline deadline,
+                              ConstraintViolation<CT>[] violationsByIndex, AtomicInteger violationCount, int maxViolations) {
+        ValidationContext context = isMemoizingFieldValues ? ValidationContext.acquireMemoizing() : ValidationContext.DIRECT;
+        try {
+            for(int index : task) {
+                if(violationCount.get() >= maxViolations) {
+                    return;
+                }
+                ConstraintViolation<CT> violation = constraints.get(index).evaluate(objectToValidate, context, deadline);
+                if(statistics != null) {
+                    statistics.recordEvaluation(index, violation != null);
+                }
+                if(violation != null) {
+                    violationsByIndex[index] = violation;
+                    violationCount.incrementAndGet();
+                }
+            }
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Drops the violations exceeding the given limit in execution order and collects the remaining ones in declaration
+     * order.
+     */
+    private static <CT> ValidationResult<CT> toLimitedResult(ConstraintViolation<CT>[] violationsByIndex,
+                                                             int[] currentExecutionOrder, int maxViolations) {
+        int keptViolationCount = 0;
+        for(int index : currentExecutionOrder) {
+            if(violationsByIndex[index] != null && keptViolationCount++ >= maxViolations) {
+                violationsByIndex[index] = null;
+            }
+        }
+        return keptViolationCount == 0
+                ? ValidationResult.valid()
+                : toResult(violationsByIndex, Math.min(keptViolationCount, maxViolations));
+    }
+
+    /**
+     * Evaluates the constraints of this plan against all given objects, constraint by constraint. Before a service-backed
+     * constraint is evaluated, the keys of all objects are looked up at once, and results of service lookups are shared
+     * by all objects of the batch. The evaluation of an object stops once the violations allowed by the given policy
+     * are reached, its later constraints are neither evaluated nor looked up.
+     * @param objectsToValidate objects that should be validated.
+     * @param evaluationPolicy policy defining when the evaluation of a single object stops.
+     * @param serviceResults cache of the service results shared by the batch.
+     * @return the results of the validations in the order of the given objects.
+     */
+    List<ValidationResult<CT>> evaluateAll(List<CT> objectsToValidate, EvaluationPolicy evaluationPolicy,
+                                           ServiceResultCache serviceResults) {
+        int objectCount = objectsToValidate.size();
+        int maxViolations = evaluationPolicy.getMaxViolations();
+        ValidationDeadline deadline = ValidationDeadline.start(evaluationPolicy);
+        ValidationContext[] contexts = new ValidationContext[objectCount];
+        for(int i = 0; i < objectCount; i++) {
+            contexts[i] = ValidationContext.createForBatch(serviceResults);
+        }
+        ConstraintViolation<CT>[][] violationsByObject = newViolationArrays(objectCount);
+        int[] violationCounts = new int[objectCount];
+        boolean[] isFinished = new boolean[objectCount];
+        for(int index : executionOrder) {
+            Constraint<CT> constraint = constraints.get(index);
+            ServiceBinding<CT, ?> serviceBinding = constraint.getServiceBinding();
+            if(serviceBinding != null && (deadline == null || !deadline.isExpired())) {
+                try {
+                    serviceBinding.prefetch(objectsToValidate, contexts, isFinished, serviceResults);
+                } catch (RuntimeException e) {
+                    // lookups are repeated per object, where failures are handled by the constraint's failure outcome
+                    if(!constraint.hasFailureOutcome()) {
+                        throw e;
+                    }
+                }
+            }
+            for(int i = 0; i < objectCount; i++) {
+                if(isFinished[i]) {
+                    continue;
+                }
+                ConstraintViolation<CT> violation = constraint.evaluate(objectsToValidate.get(i), contexts[i], deadline);
+                if(statistics != null) {
+                    statistics.recordEvaluation(index, violation != null);
+                }
+                if(violation != null) {
+                    if(violationsByObject[i] == null) {
+                        violationsByObject[i] = newViolationArray(constraints.size());
+                    }
+                    violationsByObject[i][index] = violation;
+                    isFinished[i] = ++violationCounts[i] >= maxViolations;
+                }
+            }
+        }
+        if(statistics != null && ThreadLocalRandom.current().nextInt(ADAPTIVE_REORDER_INTERVAL) < objectCount) {
+            executionOrder = statistics.computeExecutionOrder(constraints);
+        }
+        List<ValidationResult<CT>> results = new ArrayList<>(objectCount);
+        for(int i = 0; i < objectCount; i++) {
+            results.add(violationsByObject[i] == null
+                    ? ValidationResult.valid()
+                    : toResult(violationsByObject[i], violationCounts[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Creates an array of violations indexed by constraint. Generic arrays cannot be created directly, the unchecked
+     * cast is safe since the array only ever holds violations of this plan's constraints and never leaves this plan.
+     */
+    @SuppressWarnings("unchecked")
+    private static <CT> ConstraintViolation<CT>[] newViolationArray(int constraintCount) {
+        return (ConstraintViolation<CT>[]) new ConstraintViolation<?>[constraintCount];
+    }
+
+    /**
+     * Creates an array of violation arrays indexed by object (see newViolationArray).
+     */
+    @SuppressWarnings("unchecked")
+    private static <CT> ConstraintViolation<CT>[][] newViolationArrays(int objectCount) {
+        return (ConstraintViolation<CT>[][]) new ConstraintViolation<?>[objectCount][];
+    }
+
+    /**
+     * Collects the given violations, indexed by the declaration index of their constraints, in declaration order.
+     */
+    private static <CT> ValidationResult<CT> toResult(ConstraintViolation<CT>[] violationsByIndex, int violationCount) {
+        List<ConstraintViolation<CT>> violations = new ArrayList<>(violationCount);
+        for(ConstraintViolation<CT> violation : violationsByIndex) {
+            if(violation != null) {
+                violations.add(violation);
+            }
+        }
+        return ValidationResult.of(violations);
+    }
+
+}
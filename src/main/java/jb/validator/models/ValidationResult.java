@@ -0,0 +1,122 @@
+package jb.validator.models;
+
+import jb.validator.constants.ViolationKindEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable outcome of a validation. A valid result is represented by a shared instance, so validating an object that
+ * satisfies all constraints does not allocate a result.
+ * @param <CT> type of the validated object.
+ */
+public final class ValidationResult<CT> {
+
+    private static final String MESSAGE_DELIMITER = "; ";
+
+    private static final ValidationResult<?> VALID = new ValidationResult<>(List.of());
+
+    private final List<ConstraintViolation<CT>> violations;
+
+    private String message;
+
+    private ValidationResult(List<ConstraintViolation<CT>> violations) {
+        this.violations = violations;
+    }
+
+    /**
+     * @param <CT> type of the validated object.
+     * @return the shared result representing a successful validation.
+     */
+    @SuppressWarnings("unchecked")
+    public static <CT> ValidationResult<CT> valid() {
+        return (ValidationResult<CT>) VALID;
+    }
+
+    static <CT> ValidationResult<CT> of(List<ConstraintViolation<CT>> violations) {
+        if(violations == null || violations.isEmpty()) {
+            return valid();
+        }
+        return new ValidationResult<>(List.copyOf(violations));
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @return true if no constraint is known to be violated, but some constraints could not be evaluated completely
+     *  and were reported as violations of kind ViolationKindEnum.INDETERMINATE.
+     */
+    public boolean isIndeterminate() {
+        if(violations.isEmpty()) {
+            return false;
+        }
+        for(ConstraintViolation<CT> violation : violations) {
+            if(violation.getViolationKind() != ViolationKindEnum.INDETERMINATE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the violations of this result in the order in which the constraints were declared. The returned list is
+     *  unmodifiable and empty if the validation passed.
+     */
+    public List<ConstraintViolation<CT>> getViolations() {
+        return violations;
+    }
+
+    /**
+     * Flattens the violations of this result by replacing every violation of a nested validation constraint (see
+     * validWith) with the violations of the nested validation, recursively.
+     * @return the violations of this result and of all nested validations, each located by its path
+     *  (see ConstraintViolation.getPath()).
+     */
+    public List<ConstraintViolation<?>> getFlattenedViolations() {
+        List<ConstraintViolation<?>> flattenedViolations = new ArrayList<>();
+        for(ConstraintViolation<CT> violation : violations) {
+            addFlattenedViolations(violation, flattenedViolations);
+        }
+        return flattenedViolations;
+    }
+
+    private static void addFlattenedViolations(ConstraintViolation<?> violation, List<ConstraintViolation<?>> flattenedViolations) {
+        List<ConstraintViolation<?>> nestedViolations = violation.getNestedViolations();
+        if(nestedViolations.isEmpty()) {
+            flattenedViolations.add(violation);
+        } else {
+            for(ConstraintViolation<?> nestedViolation : nestedViolations) {
+                addFlattenedViolations(nestedViolation, flattenedViolations);
+            }
+        }
+    }
+
+    /**
+     * Renders the messages of all violations joined by "; ". The message is only built when this method is called for
+     * the first time.
+     * @return the combined violation message or an empty string if the validation passed.
+     */
+    public String getMessage() {
+        String renderedMessage = message;
+        if(renderedMessage == null) {
+            StringBuilder messageBuilder = new StringBuilder();
+            for(int i = 0; i < violations.size(); i++) {
+                if(i > 0) {
+                    messageBuilder.append(MESSAGE_DELIMITER);
+                }
+                messageBuilder.append(violations.get(i).getMessage());
+            }
+            renderedMessage = messageBuilder.toString();
+            message = renderedMessage;
+        }
+        return renderedMessage;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "ValidationResult[valid]" : String.format("ValidationResult[%s]", getMessage());
+    }
+
+}
@@ -0,0 +1,57 @@
+package jb.validator.models;
+
+import jb.validator.exceptions.WrapperException;
+
+import java.util.List;
+
+/**
+ * Information captured by a constraint check at the moment a violation is detected: the message template of the
+ * violated constraint, the already computed values used to render it and, if the violation was caused by an
+ * exception or by nested validations, the caught throwable or the nested validation results.
+ */
+final class ViolationDetails {
+
+    private final MessageTemplate messageTemplate;
+    private final Object[] messageArguments;
+    private final Throwable cause;
+    private final List<NestedValidationResult> nestedResults;
+
+    ViolationDetails(MessageTemplate messageTemplate, Object... messageArguments) {
+        this(null, List.of(), messageTemplate, messageArguments);
+    }
+
+    ViolationDetails(Throwable cause, MessageTemplate messageTemplate, Object... messageArguments) {
+        this(cause, List.of(), messageTemplate, messageArguments);
+    }
+
+    ViolationDetails(List<NestedValidationResult> nestedResults, MessageTemplate messageTemplate, Object... messageArguments) {
+        this(null, nestedResults, messageTemplate, messageArguments);
+    }
+
+    private ViolationDetails(Throwable cause, List<NestedValidationResult> nestedResults, MessageTemplate messageTemplate,
+                             Object... messageArguments) {
+        this.cause = cause;
+        this.nestedResults = nestedResults;
+        this.messageTemplate = messageTemplate;
+        this.messageArguments = messageArguments;
+    }
+
+    String renderMessage() {
+        return messageTemplate.render(messageArguments);
+    }
+
+    /**
+     * @return the throwable that caused the violation, unwrapped from a WrapperException, or null.
+     */
+    Throwable getCause() {
+        if(cause instanceof WrapperException && cause.getCause() != null) {
+            return cause.getCause();
+        }
+        return cause;
+    }
+
+    List<NestedValidationResult> getNestedResults() {
+        return nestedResults;
+    }
+
+}
@@ -0,0 +1,125 @@
+package jb.validator.services;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter implementing KeyPreFilter. The filter is sized for an expected number of keys and a desired
+ * false positive probability, is usually filled from a snapshot of all stored keys and updated with every written key.
+ * Keys cannot be removed, so deleted keys remain possibly contained until the filter is rebuilt.
+ * Bit positions are derived from the key's hashCode by double hashing, so keys with equal hash codes are
+ * indistinguishable for the filter.
+ * @param <K> type of the filtered keys.
+ */
+public final class BloomFilter<K> implements KeyPreFilter<K> {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctionCount;
+
+    private BloomFilter(long bitCount, int hashFunctionCount) {
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashFunctionCount = hashFunctionCount;
+    }
+
+    /**
+     * Creates an empty filter.
+     * @param expectedKeyCount number of keys the filter is expected to hold.
+     * @param falsePositiveProbability desired probability of reporting an absent key as possibly contained, once the
+     *                                 expected number of keys was put.
+     * @param <K> type of the filtered keys.
+     * @return a new empty filter.
+     */
+    public static <K> BloomFilter<K> create(long expectedKeyCount, double falsePositiveProbability) {
+        if(expectedKeyCount < 1) {
+            throw new IllegalArgumentException(String.format("expectedKeyCount must be positive but was %s", expectedKeyCount));
+        }
+        if(!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException(
+                    String.format("falsePositiveProbability must be between 0 and 1 but was %s", falsePositiveProbability));
+        }
+        long bitCount = Math.max(64, (long) Math.ceil(-expectedKeyCount * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+        if(bitCount > 64L * Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("A filter for %s keys would be too large", expectedKeyCount));
+        }
+        int hashFunctionCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeyCount * Math.log(2)));
+        return new BloomFilter<>(bitCount, hashFunctionCount);
+    }
+
+    /**
+     * Creates a filter holding the given keys.
+     * @param keys snapshot of all known keys.
+     * @param falsePositiveProbability desired probability of reporting an absent key as possibly contained.
+     * @param <K> type of the filtered keys.
+     * @return a new filter containing the given keys.
+     */
+    public static <K> BloomFilter<K> of(Collection<? extends K> keys, double falsePositiveProbability) {
+        BloomFilter<K> bloomFilter = create(Math.max(1, keys.size()), falsePositiveProbability);
+        bloomFilter.putAll(keys);
+        return bloomFilter;
+    }
+
+    /**
+     * Adds the given key, e.g. after it was written to the service.
+     */
+    public void put(K key) {
+        long hash = mix(Objects.hashCode(key));
+        long secondHash = Long.rotateLeft(hash, 32);
+        for(int i = 1; i <= hashFunctionCount; i++) {
+            long bitIndex = bitIndex(hash + i * secondHash);
+            int wordIndex = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+            long word = bits.get(wordIndex);
+            while((word & mask) == 0 && !bits.compareAndSet(wordIndex, word, word | mask)) {
+                word = bits.get(wordIndex);
+            }
+        }
+    }
+
+    public void putAll(Collection<? extends K> keys) {
+        for(K key : keys) {
+            put(key);
+        }
+    }
+
+    @Override
+    public boolean mightContain(K key) {
+        long hash = mix(Objects.hashCode(key));
+        long secondHash = Long.rotateLeft(hash, 32);
+        for(int i = 1; i <= hashFunctionCount; i++) {
+            long bitIndex = bitIndex(hash + i * secondHash);
+            if((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashFunctionCount() {
+        return hashFunctionCount;
+    }
+
+    private long bitIndex(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * Spreads the given hash code over 64 bits (finalizer of MurmurHash3).
+     */
+    private static long mix(int hashCode) {
+        long hash = hashCode;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,89 @@
+package jb.validator.services;
+
+import jb.validator.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Limits the number of concurrent calls of a service function used by service-backed constraints, so a slow backend
+ * cannot occupy all validating threads. Calls exceeding the limit wait at most the configured time for a free slot and
+ * are rejected with a ServiceUnavailableException afterwards.
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    private Bulkhead(String name, int maxConcurrentCalls, Duration maxWait) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * @param name name of the protected service, used in exception messages.
+     * @param maxConcurrentCalls maximal number of concurrent calls. Must be positive.
+     * @param maxWait maximal time a call waits for a free slot.
+     * @return a new bulkhead.
+     */
+    public static Bulkhead of(String name, int maxConcurrentCalls, Duration maxWait) {
+        if(maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException(String.format("maxConcurrentCalls must be positive but was %s", maxConcurrentCalls));
+        }
+        if(maxWait.isNegative()) {
+            throw new IllegalArgumentException(String.format("maxWait must not be negative but was %s", maxWait));
+        }
+        return new Bulkhead(Objects.requireNonNull(name), maxConcurrentCalls, maxWait);
+    }
+
+    /**
+     * Decorates the given service function with this bulkhead.
+     * @param serviceFunction function to protect.
+     * @param <K> type of the looked up keys.
+     * @param <V> type of the lookup results.
+     * @return a function rejecting calls with a ServiceUnavailableException if no slot becomes free in time.
+     */
+    public <K, V> Function<K, V> decorate(Function<K, V> serviceFunction) {
+        Objects.requireNonNull(serviceFunction);
+        return key -> {
+            acquirePermit();
+            try {
+                return serviceFunction.apply(key);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * @return the number of calls that may currently start without waiting.
+     */
+    public int getAvailableCallCount() {
+        return permits.availablePermits();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void acquirePermit() {
+        boolean isAcquired;
+        try {
+            isAcquired = maxWaitNanos == 0
+                    ? permits.tryAcquire()
+                    : permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            isAcquired = false;
+        }
+        if(!isAcquired) {
+            throw new ServiceUnavailableException(String.format("Bulkhead %s is full", name));
+        }
+    }
+
+}
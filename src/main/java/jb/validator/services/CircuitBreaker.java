@@ -0,0 +1,305 @@
+package jb.validator.services;
+
+import jb.validator.constants.CircuitStateEnum;
+import jb.validator.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for a service function used by service-backed constraints. While closed, the outcomes of calls are
+ * counted in a rolling time window. Once enough calls were made and the failure rate within the window reaches the
+ * threshold, the breaker opens and rejects all calls with a ServiceUnavailableException, without invoking the service.
+ * After the open duration, the breaker becomes half-open and lets a limited number of trial calls pass: if all of them
+ * succeed it closes again, a single failure opens it again.
+ * Outcomes are only counted in the state a call was permitted in: a call permitted while closed that completes after the
+ * breaker has opened (or a trial call of an earlier half-open phase) is ignored, so only actual trial calls can close
+ * a half-open breaker.
+ * A call fails if the service function throws an exception. Combined with Constraint.withFailureOutcome, rejected
+ * calls can be reported as violations, passes or indeterminate constraints instead of failing the validation.
+ */
+public final class CircuitBreaker {
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCallCount;
+    private final long openDurationNanos;
+    private final int halfOpenCallCount;
+    private final long bucketNanos;
+    private final WindowBucket[] window;
+    private final LongSupplier ticker;
+
+    private final AtomicReference<StatePhase> phase;
+
+    private CircuitBreaker(Builder builder) {
+        this.name = builder.name;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.minimumCallCount = builder.minimumCallCount;
+        this.openDurationNanos = builder.openDuration.toNanos();
+        this.halfOpenCallCount = builder.halfOpenCallCount;
+        this.bucketNanos = Math.max(1, builder.windowDuration.toNanos() / builder.windowBucketCount);
+        this.window = new WindowBucket[builder.windowBucketCount];
+        for(int i = 0; i < window.length; i++) {
+            window[i] = new WindowBucket();
+        }
+        this.ticker = builder.ticker;
+        this.phase = new AtomicReference<>(new StatePhase(CircuitStateEnum.CLOSED, ticker.getAsLong()));
+    }
+
+    /**
+     * Creates a builder for a breaker opening at a failure rate of 50% within a window of 10 seconds, once at least 10
+     * calls were made, staying open for 30 seconds and closing after 3 successful trial calls.
+     * @param name name of the protected service, used in exception messages.
+     * @return a new builder.
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Decorates the given service function with this breaker.
+     * @param serviceFunction function to protect.
+     * @param <K> type of the looked up keys.
+     * @param <V> type of the lookup results.
+     * @return a function rejecting calls with a ServiceUnavailableException while this breaker is open.
+     */
+    public <K, V> Function<K, V> decorate(Function<K, V> serviceFunction) {
+        Objects.requireNonNull(serviceFunction);
+        return key -> {
+            StatePhase permittedPhase = acquirePermission();
+            V result;
+            try {
+                result = serviceFunction.apply(key);
+            } catch (RuntimeException | Error e) {
+                onFailure(permittedPhase);
+                throw e;
+            }
+            onSuccess(permittedPhase);
+            return result;
+        };
+    }
+
+    public CircuitStateEnum getState() {
+        StatePhase currentPhase = phase.get();
+        if(currentPhase.state == CircuitStateEnum.OPEN && isOpenDurationElapsed(currentPhase)) {
+            return CircuitStateEnum.HALF_OPEN;
+        }
+        return currentPhase.state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the phase the call is permitted in.
+     * @throws ServiceUnavailableException if this breaker does not permit a call.
+     */
+    private StatePhase acquirePermission() {
+        StatePhase currentPhase = phase.get();
+        if(currentPhase.state == CircuitStateEnum.OPEN && isOpenDurationElapsed(currentPhase)) {
+            transition(currentPhase, CircuitStateEnum.HALF_OPEN);
+            currentPhase = phase.get();
+        }
+        if(currentPhase.state == CircuitStateEnum.OPEN) {
+            throw new ServiceUnavailableException(String.format("Circuit breaker %s is open", name));
+        }
+        if(currentPhase.state == CircuitStateEnum.HALF_OPEN && currentPhase.halfOpenPermits.getAndIncrement() >= halfOpenCallCount) {
+            throw new ServiceUnavailableException(String.format("Circuit breaker %s is half-open", name));
+        }
+        return currentPhase;
+    }
+
+    private void onSuccess(StatePhase permittedPhase) {
+        if(phase.get() != permittedPhase) {
+            return;
+        }
+        if(permittedPhase.state == CircuitStateEnum.HALF_OPEN) {
+            if(permittedPhase.halfOpenSuccesses.incrementAndGet() >= halfOpenCallCount) {
+                transition(permittedPhase, CircuitStateEnum.CLOSED);
+            }
+            return;
+        }
+        currentBucket().successes.increment();
+    }
+
+    private void onFailure(StatePhase permittedPhase) {
+        if(phase.get() != permittedPhase) {
+            return;
+        }
+        if(permittedPhase.state == CircuitStateEnum.HALF_OPEN) {
+            transition(permittedPhase, CircuitStateEnum.OPEN);
+            return;
+        }
+        currentBucket().failures.increment();
+        long failureCount = 0;
+        long callCount = 0;
+        long oldestEpoch = ticker.getAsLong() / bucketNanos - window.length + 1;
+        for(WindowBucket bucket : window) {
+            if(bucket.epoch >= oldestEpoch) {
+                long bucketFailures = bucket.failures.sum();
+                failureCount += bucketFailures;
+                callCount += bucketFailures + bucket.successes.sum();
+            }
+        }
+        if(callCount >= minimumCallCount && failureCount >= failureRateThreshold * callCount) {
+            transition(permittedPhase, CircuitStateEnum.OPEN);
+        }
+    }
+
+    private void transition(StatePhase expectedPhase, CircuitStateEnum newState) {
+        if(phase.compareAndSet(expectedPhase, new StatePhase(newState, ticker.getAsLong())) && newState == CircuitStateEnum.CLOSED) {
+            for(WindowBucket bucket : window) {
+                bucket.reset(Long.MIN_VALUE);
+            }
+        }
+    }
+
+    private boolean isOpenDurationElapsed(StatePhase openPhase) {
+        return ticker.getAsLong() - openPhase.enteredAtNanos >= openDurationNanos;
+    }
+
+    /**
+     * @return the bucket of the current time slice, reset if it still holds the counts of an earlier slice.
+     */
+    private WindowBucket currentBucket() {
+        long epoch = ticker.getAsLong() / bucketNanos;
+        WindowBucket bucket = window[(int) Math.floorMod(epoch, (long) window.length)];
+        if(bucket.epoch != epoch) {
+            synchronized (bucket) {
+                if(bucket.epoch != epoch) {
+                    bucket.reset(epoch);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * A single stay in a state. Every transition creates a new phase, so outcomes of calls permitted in an earlier
+     * phase are recognized by identity. Half-open phases count their own trial calls.
+     */
+    private static final class StatePhase {
+
+        private final CircuitStateEnum state;
+        private final long enteredAtNanos;
+        private final AtomicInteger halfOpenPermits = new AtomicInteger();
+        private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+        private StatePhase(CircuitStateEnum state, long enteredAtNanos) {
+            this.state = state;
+            this.enteredAtNanos = enteredAtNanos;
+        }
+
+    }
+
+    private static final class WindowBucket {
+
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile long epoch = Long.MIN_VALUE;
+
+        private void reset(long newEpoch) {
+            successes.reset();
+            failures.reset();
+            epoch = newEpoch;
+        }
+
+    }
+
+    // ----- Builder
+
+    public static final class Builder {
+
+        private final String name;
+        private double failureRateThreshold = 0.5;
+        private int minimumCallCount = 10;
+        private Duration windowDuration = Duration.ofSeconds(10);
+        private int windowBucketCount = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCallCount = 3;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        /**
+         * @param failureRateThreshold failure rate within the window (greater than 0, at most 1) opening the breaker.
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            if(!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+                throw new IllegalArgumentException(
+                        String.format("failureRateThreshold must be greater than 0 and at most 1 but was %s", failureRateThreshold));
+            }
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param minimumCallCount number of calls within the window required before the breaker may open.
+         */
+        public Builder minimumCallCount(int minimumCallCount) {
+            this.minimumCallCount = requirePositive(minimumCallCount, "minimumCallCount");
+            return this;
+        }
+
+        /**
+         * @param windowDuration duration of the rolling window in which failures are counted.
+         * @param windowBucketCount number of time slices the window is divided into.
+         */
+        public Builder slidingWindow(Duration windowDuration, int windowBucketCount) {
+            if(windowDuration.isNegative() || windowDuration.isZero()) {
+                throw new IllegalArgumentException(String.format("windowDuration must be positive but was %s", windowDuration));
+            }
+            this.windowDuration = windowDuration;
+            this.windowBucketCount = requirePositive(windowBucketCount, "windowBucketCount");
+            return this;
+        }
+
+        /**
+         * @param openDuration time the breaker stays open before it permits trial calls.
+         */
+        public Builder openDuration(Duration openDuration) {
+            if(openDuration.isNegative()) {
+                throw new IllegalArgumentException(String.format("openDuration must not be negative but was %s", openDuration));
+            }
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * @param halfOpenCallCount number of successful trial calls closing a half-open breaker.
+         */
+        public Builder halfOpenCallCount(int halfOpenCallCount) {
+            this.halfOpenCallCount = requirePositive(halfOpenCallCount, "halfOpenCallCount");
+            return this;
+        }
+
+        /**
+         * @param ticker source of the current time in nanoseconds. Defaults to System.nanoTime().
+         */
+        public Builder ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+
+        private static int requirePositive(int value, String parameterName) {
+            if(value < 1) {
+                throw new IllegalArgumentException(String.format("%s must be positive but was %s", parameterName, value));
+            }
+            return value;
+        }
+
+    }
+
+}
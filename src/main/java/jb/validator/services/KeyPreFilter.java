@@ -0,0 +1,47 @@
+package jb.validator.services;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Probabilistic pre-check of the keys known to a service, e.g. a BloomFilter built from a snapshot of all stored ids.
+ * A pre-filter may report keys as possibly contained that are not, but never reports a contained key as absent, so
+ * lookups of keys that are definitely absent can skip the service altogether. This mainly pays off for uniqueness
+ * checks using absentUsing, where most looked up keys do not exist.
+ * @param <K> type of the filtered keys.
+ */
+@FunctionalInterface
+public interface KeyPreFilter<K> {
+
+    /**
+     * @param key key to check.
+     * @return false if the given key is definitely unknown to the service, true if it might be known.
+     */
+    boolean mightContain(K key);
+
+    /**
+     * Decorates the given service function, so that definitely absent keys result in an empty optional without invoking
+     * the function.
+     * @param serviceFunction function looking up keys that might be known.
+     * @param <X> type of the optionals content.
+     * @return the decorated service function.
+     */
+    default <X> Function<K, Optional<X>> decorate(Function<K, Optional<X>> serviceFunction) {
+        return decorate(serviceFunction, Optional.empty());
+    }
+
+    /**
+     * Decorates the given service function, so that definitely absent keys result in the given absent result without
+     * invoking the function.
+     * @param serviceFunction function looking up keys that might be known.
+     * @param absentResult result of keys that are definitely absent (e.g. an empty collection).
+     * @param <V> type of the lookup results.
+     * @return the decorated service function.
+     */
+    default <V> Function<K, V> decorate(Function<K, V> serviceFunction, V absentResult) {
+        Objects.requireNonNull(serviceFunction);
+        return key -> mightContain(key) ? serviceFunction.apply(key) : absentResult;
+    }
+
+}
@@ -0,0 +1,359 @@
+package jb.validator.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache for the results of service functions, meant to be shared by service-backed constraints that look up
+ * slowly changing data (e.g. currency codes or country ids). A cache decorates a service function:
+ * <pre>
+ * Constraint.forField(MyObject::getCurrency).presentUsing(currencyCache.decorate(currencyRepository::findByCode))
+ * </pre>
+ * Every entry expires after a fixed time to live. Negative results (empty optionals, empty collections and null) have
+ * their own time to live, so misses can be cached for a shorter time or not at all.
+ * The cache is split into independently locked segments selected by the hash of the key, so lookups of different
+ * segments never contend. The maximum size is divided among the segments and is therefore approximate (see
+ * Builder.maximumSize). Each segment evicts using a segmented LRU policy: new entries are admitted to a probationary
+ * area and are promoted to a protected area on their second hit, so a scan over many one-time keys cannot evict the
+ * frequently used ones. The service function is invoked outside of any lock, hence concurrent misses of the same key
+ * may both invoke it.
+ * @param <K> type of the looked up keys.
+ * @param <V> type of the lookup results.
+ */
+public final class ServiceCache<K, V> {
+
+    private static final int MAXIMUM_SEGMENT_COUNT = 16;
+    private static final int MINIMUM_SEGMENT_CAPACITY = 64;
+
+    private final List<Segment<K, V>> segments;
+    private final long timeToLiveNanos;
+    private final long negativeTimeToLiveNanos;
+    private final Predicate<V> isNegativeResult;
+    private final LongSupplier ticker;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    private ServiceCache(Builder<K, V> builder) {
+        // small caches use fewer segments, so their capacity is not fragmented into tiny per-segment limits
+        int segmentCount = Math.min(MAXIMUM_SEGMENT_COUNT,
+                Integer.highestOneBit((int) Math.max(1, Math.min(builder.maximumSize / MINIMUM_SEGMENT_CAPACITY, 1 << 30))));
+        long segmentCapacity = builder.maximumSize / segmentCount;
+        long remainder = builder.maximumSize % segmentCount;
+        List<Segment<K, V>> createdSegments = new ArrayList<>(segmentCount);
+        for(int i = 0; i < segmentCount; i++) {
+            // the remainder is spread across the first segments, so the capacities add up to the maximum size
+            createdSegments.add(new Segment<>((int) Math.min(Integer.MAX_VALUE, segmentCapacity + (i < remainder ? 1 : 0))));
+        }
+        this.segments = List.copyOf(createdSegments);
+        this.timeToLiveNanos = builder.timeToLive.toNanos();
+        this.negativeTimeToLiveNanos = builder.negativeTimeToLive.toNanos();
+        this.isNegativeResult = builder.isNegativeResult;
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * Creates a builder for a cache holding at most 10000 entries for 10 minutes, without caching negative results.
+     * @param <K> type of the looked up keys.
+     * @param <V> type of the lookup results.
+     * @return a new builder.
+     */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Decorates the given service function with this cache.
+     * @param serviceFunction function looking up the results of keys that are not cached.
+     * @return a function answering lookups from this cache and delegating misses to the given function.
+     */
+    public Function<K, V> decorate(Function<K, V> serviceFunction) {
+        Objects.requireNonNull(serviceFunction);
+        return key -> get(key, serviceFunction);
+    }
+
+    /**
+     * Returns the cached result of the given key, or looks it up using the given service function and caches it.
+     * @param key key to look up.
+     * @param serviceFunction function looking up the result if the key is not cached.
+     * @return the result of the given key.
+     */
+    public V get(K key, Function<K, V> serviceFunction) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = ticker.getAsLong();
+        Entry<V> entry = segment.get(key, now, this);
+        if(entry != null) {
+            hitCount.increment();
+            return entry.value;
+        }
+        missCount.increment();
+        V value = serviceFunction.apply(key);
+        long entryTimeToLiveNanos = isNegativeResult.test(value) ? negativeTimeToLiveNanos : timeToLiveNanos;
+        if(entryTimeToLiveNanos > 0) {
+            segment.put(key, new Entry<>(value, now + entryTimeToLiveNanos), this);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the given key, e.g. after the underlying data was written.
+     */
+    public void invalidate(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void invalidateAll() {
+        for(Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached entries, including expired entries that have not been removed yet.
+     */
+    public long size() {
+        long size = 0;
+        for(Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public ServiceCacheStatistics getStatistics() {
+        return new ServiceCacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = Objects.hashCode(key);
+        hash ^= hash >>> 16;
+        return segments.get(hash & (segments.size() - 1));
+    }
+
+    private static boolean isEmptyResult(Object value) {
+        if(value == null) {
+            return true;
+        }
+        if(value instanceof Optional) {
+            return ((Optional<?>) value).isEmpty();
+        }
+        return value instanceof Collection && ((Collection<?>) value).isEmpty();
+    }
+
+    // ----- Segments
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+    }
+
+    /**
+     * Part of the cache guarded by its own lock, holding its entries in a probationary and a protected LRU area.
+     */
+    private static final class Segment<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Entry<V>> probationEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry<V>> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+        private final int protectedCapacity;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = capacity * 4 / 5;
+        }
+
+        private Entry<V> get(K key, long now, ServiceCache<K, V> cache) {
+            lock.lock();
+            try {
+                Entry<V> entry = protectedEntries.get(key);
+                if(entry == null) {
+                    entry = probationEntries.get(key);
+                    if(entry == null) {
+                        return null;
+                    }
+                    if(isExpired(entry, now)) {
+                        probationEntries.remove(key);
+                        cache.expirationCount.increment();
+                        return null;
+                    }
+                    promote(key, entry, cache);
+                    return entry;
+                }
+                if(isExpired(entry, now)) {
+                    protectedEntries.remove(key);
+                    cache.expirationCount.increment();
+                    return null;
+                }
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(K key, Entry<V> entry, ServiceCache<K, V> cache) {
+            lock.lock();
+            try {
+                if(protectedEntries.containsKey(key)) {
+                    protectedEntries.put(key, entry);
+                    return;
+                }
+                probationEntries.put(key, entry);
+                while(probationEntries.size() + protectedEntries.size() > capacity) {
+                    LinkedHashMap<K, Entry<V>> evictedArea = probationEntries.isEmpty() ? protectedEntries : probationEntries;
+                    Iterator<Map.Entry<K, Entry<V>>> eldestEntries = evictedArea.entrySet().iterator();
+                    eldestEntries.next();
+                    eldestEntries.remove();
+                    cache.evictionCount.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Moves the given entry to the protected area, demoting the least recently used protected entry if necessary.
+         */
+        private void promote(K key, Entry<V> entry, ServiceCache<K, V> cache) {
+            if(protectedCapacity == 0) {
+                return;
+            }
+            probationEntries.remove(key);
+            protectedEntries.put(key, entry);
+            if(protectedEntries.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, Entry<V>>> eldestEntries = protectedEntries.entrySet().iterator();
+                Map.Entry<K, Entry<V>> eldestEntry = eldestEntries.next();
+                eldestEntries.remove();
+                probationEntries.put(eldestEntry.getKey(), eldestEntry.getValue());
+            }
+        }
+
+        private void remove(K key) {
+            lock.lock();
+            try {
+                probationEntries.remove(key);
+                protectedEntries.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                probationEntries.clear();
+                protectedEntries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return probationEntries.size() + protectedEntries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static boolean isExpired(Entry<?> entry, long now) {
+            return now - entry.expiresAtNanos >= 0;
+        }
+
+    }
+
+    // ----- Builder
+
+    public static final class Builder<K, V> {
+
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(10);
+        private Duration negativeTimeToLive = Duration.ZERO;
+        private Predicate<V> isNegativeResult = ServiceCache::isEmptyResult;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maximumSize maximal number of cached entries. The bound is approximate: it is applied per segment,
+         *                    each segment holding an equal share of it, so keys whose hashes concentrate in few
+         *                    segments are evicted before the cache as a whole is full. Caches smaller than 128 entries
+         *                    consist of a single segment and are bounded exactly.
+         */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if(maximumSize < 1) {
+                throw new IllegalArgumentException(String.format("maximumSize must be positive but was %s", maximumSize));
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * @param timeToLive time after which a cached result expires.
+         */
+        public Builder<K, V> expireAfterWrite(Duration timeToLive) {
+            this.timeToLive = requireNonNegative(timeToLive);
+            return this;
+        }
+
+        /**
+         * @param negativeTimeToLive time after which a cached negative result expires. Zero disables negative caching.
+         */
+        public Builder<K, V> expireNegativeResultsAfterWrite(Duration negativeTimeToLive) {
+            this.negativeTimeToLive = requireNonNegative(negativeTimeToLive);
+            return this;
+        }
+
+        /**
+         * @param isNegativeResult predicate recognizing negative results. By default, null, empty optionals and empty
+         *                         collections are negative.
+         */
+        public Builder<K, V> negativeResultsMatching(Predicate<V> isNegativeResult) {
+            this.isNegativeResult = Objects.requireNonNull(isNegativeResult);
+            return this;
+        }
+
+        /**
+         * @param ticker source of the current time in nanoseconds. Defaults to System.nanoTime().
+         */
+        public Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public ServiceCache<K, V> build() {
+            return new ServiceCache<>(this);
+        }
+
+        private static Duration requireNonNegative(Duration duration) {
+            if(duration.isNegative()) {
+                throw new IllegalArgumentException(String.format("Duration must not be negative but was %s", duration));
+            }
+            return duration;
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package jb.validator.services;
+
+/**
+ * Immutable snapshot of the statistics of a ServiceCache.
+ */
+public final class ServiceCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    ServiceCacheStatistics(long hitCount, long missCount, long evictionCount, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    /**
+     * @return number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of lookups passed to the service function.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of entries removed to keep the cache within its maximum size.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return number of entries removed since their time to live had passed.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * @return the ratio of hits to all lookups, or 1 if nothing was looked up yet.
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ServiceCacheStatistics[hits: %s, misses: %s, evictions: %s, expirations: %s]",
+                hitCount, missCount, evictionCount, expirationCount);
+    }
+
+}
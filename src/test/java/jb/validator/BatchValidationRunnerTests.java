@@ -0,0 +1,114 @@
+package jb.validator;
+
+import jb.validator.batch.BatchValidationRunner;
+import jb.validator.batch.BatchValidationStatistics;
+import jb.validator.constants.RecordFormatEnum;
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.objects.TestClass2;
+import jb.validator.validators.TestValidator2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static jb.validator.validators.ConfigurableValidator.validatorOf;
+
+class BatchValidationRunnerTests {
+
+	@Test
+	void batchRunnerValidatesJsonlAndCsvFiles(@TempDir Path directory) throws IOException {
+		Path jsonlInput = directory.resolve("records.jsonl");
+		Files.write(jsonlInput, List.of(
+				"{\"id2\": \"a\", \"someNumber2s\": [1, 2, 2], \"unknown\": {\"x\": null}}",
+				"",
+				"{\"someString2\": \"tab\\tseparated\"}",
+				"{\"id2\": ",
+				"{\"id2\": \"d\", \"someNumber2s\": [\"e\"]}"
+		));
+		Path report = directory.resolve("report.tsv");
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+		int exitCode = Main.run(new String[]{
+				"--validator", TestValidator2.class.getName(),
+				"--input", jsonlInput.toString(),
+				"--threads", "3",
+				"--report", report.toString()
+		}, new PrintStream(console, true, StandardCharsets.UTF_8));
+		assertEquals(1, exitCode);
+		List<String> reportLines = Files.readAllLines(report);
+		assertEquals(3, reportLines.size());
+		assertTrue(reportLines.get(0).startsWith("1\tid2NotNull\tNULL_VALUE\t"));
+		assertTrue(reportLines.get(1).startsWith("2\t-\tMALFORMED\t"));
+		assertTrue(reportLines.get(2).startsWith("3\t-\tMALFORMED\tInvalid value for field someNumber2s"));
+		assertTrue(console.toString(StandardCharsets.UTF_8).contains("records: 4, invalid: 1, malformed: 2, violations: 1"));
+
+		Path csvInput = directory.resolve("records.csv");
+		Files.write(csvInput, List.of("id2,someString2", "a,\"quoted, with comma\"", ",b"));
+		StringWriter csvReport = new StringWriter();
+		BatchValidationStatistics statistics = new BatchValidationRunner<>(new TestValidator2(), TestClass2.class,
+				RecordFormatEnum.fromFileName(csvInput.toString()), 1).run(csvInput, csvReport);
+		assertEquals(2, statistics.getRecordCount());
+		assertEquals(Map.of("id2NotNull", 1L), statistics.getViolationCountsByConstraint());
+		assertTrue(csvReport.toString().startsWith("1\tid2NotNull\t"));
+
+		assertEquals(2, Main.run(new String[]{"--input", csvInput.toString()}, new PrintStream(new ByteArrayOutputStream())));
+	}
+
+	@Test
+	void checkpointedBatchRunsResumeAfterCrash(@TempDir Path directory) throws IOException {
+		AtomicBoolean isCrashing = new AtomicBoolean(true);
+		AbstractValidator<TestClass2> validator = validatorOf(() -> List.of(Constraint.forField((TestClass2 record) -> {
+			if(isCrashing.get() && "crash".equals(record.getSomeString2())) {
+				throw new IllegalStateException("crash");
+			}
+			return record.getId2();
+		}).notNull().addName("id2NotNull")));
+		Path input = directory.resolve("records.csv");
+		List<String> lines = new ArrayList<>(List.of("id2,someString2"));
+		for(int i = 0; i < 10; i++) {
+			lines.add((i % 2 == 0 ? "" : "id" + i) + "," + (i == 7 ? "crash" : "record" + i));
+		}
+		Files.write(input, lines);
+		Path report = directory.resolve("report.tsv");
+		Path checkpoint = directory.resolve("run.checkpoint");
+		BatchValidationRunner<TestClass2> runner = new BatchValidationRunner<>(validator, TestClass2.class, RecordFormatEnum.CSV, 1);
+
+		assertThrows(IllegalStateException.class, () -> runner.run(input, report, checkpoint, 3));
+		assertTrue(Files.exists(checkpoint));
+		Properties checkpointProperties = new Properties();
+		try(Reader reader = Files.newBufferedReader(checkpoint)) {
+			checkpointProperties.load(reader);
+		}
+		assertEquals("6", checkpointProperties.getProperty("recordCount"));
+		assertEquals("3", checkpointProperties.getProperty("violationCount.id2NotNull"));
+
+		isCrashing.set(false);
+		BatchValidationStatistics statistics = runner.run(input, report, checkpoint, 3);
+		assertFalse(Files.exists(checkpoint));
+		assertEquals(10, statistics.getRecordCount());
+		assertEquals(5, statistics.getInvalidRecordCount());
+		assertEquals(
+				List.of("0", "2", "4", "6", "8"),
+				Files.readAllLines(report).stream().map(line -> line.split("\t")[0]).collect(Collectors.toList())
+		);
+	}
+
+}
@@ -0,0 +1,190 @@
+package jb.validator;
+
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.models.ConstraintViolation;
+import jb.validator.models.EvaluationPolicy;
+import jb.validator.models.ValidationResult;
+import jb.validator.objects.TestClass;
+import jb.validator.objects.TestClass2;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static jb.validator.validators.ConfigurableValidator.validatorOf;
+
+class ParallelEvaluationTests {
+
+	@Test
+	void parallelEvaluationRunsExpensiveConstraintsConcurrently() throws InterruptedException {
+		CountDownLatch allLookupsStarted = new CountDownLatch(3);
+		Set<Thread> lookupThreads = ConcurrentHashMap.newKeySet();
+		Function<String, Optional<String>> findById = id -> {
+			lookupThreads.add(Thread.currentThread());
+			allLookupsStarted.countDown();
+			try {
+				return allLookupsStarted.await(5, TimeUnit.SECONDS) && !id.startsWith("missing")
+						? Optional.of(id)
+						: Optional.empty();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return Optional.empty();
+			}
+		};
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsing(findById).addName("idPresent"),
+				Constraint.forField(TestClass::getSomeString).presentUsing(findById).addName("someStringPresent"),
+				Constraint.forField(TestClass::getId).notNull().addName("idNotNull"),
+				Constraint.forField(TestClass::getSomeString).suchThatTarget(String::length).isGreaterThan(100)
+						.addName("someStringLong"),
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers).presentUsing(number -> findById.apply("id"))
+						.addName("someNumbersPresent")
+		));
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("missingId");
+		objectToValidate.setSomeString("someString");
+		objectToValidate.setSomeNumbers(List.of(1));
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			ValidationResult<TestClass> result = validator.validateToResult(objectToValidate,
+					EvaluationPolicy.evaluateAll().inParallel(executor, 100));
+			assertEquals(
+					List.of("idPresent", "someStringLong"),
+					result.getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+			);
+			assertEquals(3, lookupThreads.size());
+
+			lookupThreads.clear();
+			validator.validateToResult(objectToValidate, EvaluationPolicy.evaluateAll().inParallel(executor, 1000));
+			assertEquals(Set.of(Thread.currentThread()), lookupThreads);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelEvaluationSharesServiceResultsOfTheValidation() {
+		Map<String, AtomicInteger> lookupsById = new ConcurrentHashMap<>();
+		Function<String, Optional<String>> findById = id -> {
+			lookupsById.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+			return Optional.of(id);
+		};
+		AbstractValidator<TestClass2> nestedValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass2::getId2).presentUsing(findById)
+		));
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsing(findById),
+				Constraint.forField(TestClass::getSomeString).presentUsing(findById),
+				Constraint.forField(TestClass::getSomeString).presentUsing(findById).addName("someStringPresentAgain"),
+				Constraint.forField(TestClass::getTestClass2).validWith(nestedValidator)
+		))
+				.withServiceResultCaching();
+		TestClass2 nestedObject = new TestClass2();
+		nestedObject.setId2("id");
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("otherId");
+		objectToValidate.setTestClass2(nestedObject);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for(int i = 0; i < 20; i++) {
+				lookupsById.clear();
+				assertTrue(validator.validateToResult(objectToValidate, EvaluationPolicy.evaluateAll().inParallel(executor, 0)).isValid());
+				assertEquals(Set.of("id", "otherId"), lookupsById.keySet());
+				assertEquals(1, lookupsById.get("id").get());
+				assertEquals(1, lookupsById.get("otherId").get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void largeCollectionsAreScannedInParallel() {
+		Set<Thread> scanningThreads = ConcurrentHashMap.newKeySet();
+		ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+		try {
+			Constraint<TestClass> someNumbersNonNegative = Constraint.forItemsInCollection(TestClass::getSomeNumbers)
+					.inParallel(10_000, forkJoinPool)
+					.suchThatTarget((Integer number) -> {
+						scanningThreads.add(Thread.currentThread());
+						return number;
+					})
+					.isGreaterOrEqualThan(0);
+			List<Integer> someNumbers = new ArrayList<>();
+			for(int i = 0; i < 200_000; i++) {
+				someNumbers.add(i);
+			}
+			TestClass objectToValidate = new TestClass();
+			objectToValidate.setSomeNumbers(someNumbers);
+
+			assertEquals("", someNumbersNonNegative.validateObject(objectToValidate));
+			assertFalse(scanningThreads.contains(Thread.currentThread()));
+			someNumbers.set(150_000, -1);
+			assertFalse(someNumbersNonNegative.validateObject(objectToValidate).isEmpty());
+
+			scanningThreads.clear();
+			objectToValidate.setSomeNumbers(List.of(1, 2, -3));
+			assertFalse(someNumbersNonNegative.validateObject(objectToValidate).isEmpty());
+			assertEquals(Set.of(Thread.currentThread()), scanningThreads);
+		} finally {
+			forkJoinPool.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelCollectionScansReportTheFirstFailingItemAndShareServiceResults() {
+		Map<String, AtomicInteger> lookupsById = new ConcurrentHashMap<>();
+		Function<String, Optional<String>> findById = id -> {
+			lookupsById.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+			return id.startsWith("missing") ? Optional.empty() : Optional.of(id);
+		};
+		AbstractValidator<TestClass2> nestedValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass2::getId2).presentUsing(findById)
+		));
+		ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+		try {
+			AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+					Constraint.forItemsInCollection(TestClass::getTestClass2Collection)
+							.inParallel(100, forkJoinPool)
+							.noThrowsUsing(nestedValidator::validate)
+			))
+					.withServiceResultCaching();
+			List<TestClass2> items = new ArrayList<>();
+			for(int i = 0; i < 2_000; i++) {
+				TestClass2 item = new TestClass2();
+				item.setId2(i == 1_200 || i == 1_900 ? "missing" + i : "id" + i % 10);
+				items.add(item);
+			}
+			TestClass objectToValidate = new TestClass();
+			objectToValidate.setTestClass2Collection(items);
+
+			for(int i = 0; i < 20; i++) {
+				lookupsById.clear();
+				ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+				assertEquals(1, result.getViolations().size());
+				assertTrue(result.getViolations().get(0).getCause().getMessage().contains("missing1200"));
+				assertTrue(lookupsById.values().stream().allMatch(lookups -> lookups.get() == 1));
+			}
+		} finally {
+			forkJoinPool.shutdownNow();
+		}
+	}
+
+}
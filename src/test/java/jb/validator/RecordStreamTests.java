@@ -0,0 +1,178 @@
+package jb.validator;
+
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.models.RecordResult;
+import jb.validator.objects.TestClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static jb.validator.validators.ConfigurableValidator.validatorOf;
+
+class RecordStreamTests {
+
+	@Test
+	void recordStreamsAreValidatedLazilyWithBoundedReadAhead() throws InterruptedException {
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(Constraint.forField(TestClass::getId).notNull().addName("idNotNull")));
+		AtomicLong readRecords = new AtomicLong();
+		Iterator<TestClass> records = Stream.iterate(0L, i -> i + 1)
+				.map(i -> {
+					readRecords.incrementAndGet();
+					TestClass record = new TestClass();
+					record.setId(i % 3 == 0 ? null : String.valueOf(i));
+					return record;
+				})
+				.iterator();
+		ExecutorService workerPool = Executors.newFixedThreadPool(4);
+		try {
+			Iterator<RecordResult<TestClass>> results = validator.validateEach(records, workerPool, 8);
+			for(long i = 0; i < 10_000; i++) {
+				RecordResult<TestClass> result = results.next();
+				assertEquals(i, result.getRecordIndex());
+				assertEquals(i % 3 != 0, result.isValid());
+				assertTrue(readRecords.get() <= i + 8);
+			}
+		} finally {
+			workerPool.shutdownNow();
+		}
+		assertEquals(
+				List.of(false, true, true, false),
+				validator.validateStream(Stream.of(null, "a", "b", null).map(id -> {
+					TestClass record = new TestClass();
+					record.setId(id);
+					return record;
+				})).map(RecordResult::isValid).collect(Collectors.toList())
+		);
+
+		Flow.Processor<TestClass, RecordResult<TestClass>> processor = validator.validatingProcessor(4);
+		List<RecordResult<TestClass>> published = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch completed = new CountDownLatch(1);
+		processor.subscribe(new Flow.Subscriber<>() {
+			private Flow.Subscription subscription;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(RecordResult<TestClass> item) {
+				published.add(item);
+				subscription.request(1);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		try(SubmissionPublisher<TestClass> publisher = new SubmissionPublisher<>()) {
+			publisher.subscribe(processor);
+			for(int i = 0; i < 1_000; i++) {
+				TestClass record = new TestClass();
+				record.setId(i % 2 == 0 ? null : String.valueOf(i));
+				publisher.submit(record);
+			}
+		}
+		assertTrue(completed.await(10, TimeUnit.SECONDS));
+		assertEquals(1_000, published.size());
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals(i, published.get(i).getRecordIndex());
+			assertEquals(i % 2 != 0, published.get(i).isValid());
+		}
+	}
+
+	@Test
+	void validatingProcessorRequestsRecordsOnlyOnDemandOfItsSubscriber() {
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(Constraint.forField(TestClass::getId).notNull().addName("idNotNull")));
+		// validates records and delivers results on the signalling thread, so every signal is processed when it returns
+		Executor sameThreadExecutor = Runnable::run;
+		Flow.Processor<TestClass, RecordResult<TestClass>> processor = validator.validatingProcessor(sameThreadExecutor, 4);
+		AtomicLong upstreamRequested = new AtomicLong();
+		AtomicReference<Flow.Subscriber<? super TestClass>> upstreamSubscriber = new AtomicReference<>();
+		Flow.Publisher<TestClass> upstream = subscriber -> {
+			upstreamSubscriber.set(subscriber);
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					upstreamRequested.addAndGet(n);
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+		};
+		upstream.subscribe(processor);
+		assertEquals(0, upstreamRequested.get());
+
+		List<RecordResult<TestClass>> published = new ArrayList<>();
+		AtomicReference<Flow.Subscription> downstreamSubscription = new AtomicReference<>();
+		AtomicBoolean completed = new AtomicBoolean();
+		processor.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				downstreamSubscription.set(subscription);
+			}
+
+			@Override
+			public void onNext(RecordResult<TestClass> item) {
+				published.add(item);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+				completed.set(true);
+			}
+		});
+		assertEquals(0, upstreamRequested.get());
+
+		downstreamSubscription.get().request(13);
+		for(int i = 0; i < 13; i++) {
+			assertEquals(Math.min(i + 4, 13), upstreamRequested.get());
+			TestClass record = new TestClass();
+			record.setId(i % 2 == 0 ? null : String.valueOf(i));
+			upstreamSubscriber.get().onNext(record);
+			assertEquals(i + 1, published.size());
+		}
+		upstreamSubscriber.get().onComplete();
+		assertTrue(completed.get());
+		assertEquals(13, upstreamRequested.get());
+		assertEquals(
+				LongStream.range(0, 13).boxed().collect(Collectors.toList()),
+				published.stream().map(RecordResult::getRecordIndex).collect(Collectors.toList())
+		);
+		for(int i = 0; i < 13; i++) {
+			assertEquals(i % 2 != 0, published.get(i).isValid());
+		}
+	}
+
+}
@@ -0,0 +1,472 @@
+package jb.validator;
+
+import jb.validator.constants.CircuitStateEnum;
+import jb.validator.constants.FallbackOutcomeEnum;
+import jb.validator.constants.ViolationKindEnum;
+import jb.validator.exceptions.ServiceUnavailableException;
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.models.ConstraintViolation;
+import jb.validator.models.EvaluationPolicy;
+import jb.validator.models.ValidationResult;
+import jb.validator.objects.TestClass;
+import jb.validator.objects.TestClass2;
+import jb.validator.services.BloomFilter;
+import jb.validator.services.Bulkhead;
+import jb.validator.services.CircuitBreaker;
+import jb.validator.services.ServiceCache;
+import jb.validator.services.ServiceCacheStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static jb.validator.validators.ConfigurableValidator.validatorOf;
+
+class ServiceConstraintTests {
+
+	@Test
+	void batchedServiceConstraintsLookUpDistinctItemsInChunks() {
+		List<Integer> chunkSizes = new ArrayList<>();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers)
+						.presentUsingBatch((Collection<Integer> numbers) -> {
+							chunkSizes.add(numbers.size());
+							return numbers.stream()
+									.filter(number -> number >= 0)
+									.collect(Collectors.toMap(Function.identity(), Optional::of));
+						}, 200)
+						.addName("someNumbersPresent")
+		));
+		List<Integer> someNumbers = new ArrayList<>();
+		for(int i = 0; i < 500; i++) {
+			someNumbers.add(i);
+			someNumbers.add(i);
+		}
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setSomeNumbers(someNumbers);
+
+		assertTrue(validator.validateToResult(objectToValidate).isValid());
+		assertEquals(List.of(200, 200, 100), chunkSizes);
+
+		someNumbers.add(-1);
+		ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+		assertEquals(1, result.getViolations().size());
+		assertEquals(ViolationKindEnum.DATA_ABSENT, result.getViolations().get(0).getViolationKind());
+		assertThrows(IllegalArgumentException.class,
+				() -> Constraint.forItemsInCollection(TestClass::getSomeNumbers).presentUsingBatch(numbers -> Map.of(), 0));
+	}
+
+	@Test
+	void validateAllLooksUpServicesOncePerBatch() {
+		List<Collection<String>> batchCalls = new ArrayList<>();
+		AtomicInteger singleCalls = new AtomicInteger();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId)
+						.absentUsingBatch((Collection<String> ids) -> {
+							batchCalls.add(List.copyOf(ids));
+							return ids.stream()
+									.filter(id -> id.startsWith("existing"))
+									.collect(Collectors.toMap(Function.identity(), Optional::of));
+						})
+						.addName("idAbsent"),
+				Constraint.forField(TestClass::getId)
+						.presentUsing((String id) -> {
+							singleCalls.incrementAndGet();
+							return Optional.of(id);
+						})
+						.addName("idPresent")
+		));
+		List<TestClass> objectsToValidate = new ArrayList<>();
+		for(String id : new String[]{"existing1", "new1", "existing1", null, "new1"}) {
+			TestClass objectToValidate = new TestClass();
+			objectToValidate.setId(id);
+			objectsToValidate.add(objectToValidate);
+		}
+
+		List<ValidationResult<TestClass>> results = validator.validateAll(objectsToValidate);
+		assertEquals(List.of(List.of("existing1", "new1")), batchCalls);
+		assertEquals(2, singleCalls.get());
+		assertEquals(
+				List.of(false, true, false, true, true),
+				results.stream().map(ValidationResult::isValid).collect(Collectors.toList())
+		);
+		assertEquals("idAbsent", results.get(0).getViolations().get(0).getConstraintName());
+		assertEquals(results.get(0).getMessage(), validator.validateToResult(objectsToValidate.get(0)).getMessage());
+		assertTrue(validator.validateAll(List.of()).isEmpty());
+	}
+
+	@Test
+	void validateAsyncStartsAllServiceLookupsConcurrently() {
+		List<CompletableFuture<Optional<String>>> pendingLookups = new ArrayList<>();
+		Function<String, CompletableFuture<Optional<String>>> asyncServiceFunction = id -> {
+			CompletableFuture<Optional<String>> pendingLookup = new CompletableFuture<>();
+			pendingLookups.add(pendingLookup);
+			return pendingLookup;
+		};
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsingAsync(asyncServiceFunction).addName("idPresent"),
+				Constraint.forField(TestClass::getSomeString).absentUsingAsync(asyncServiceFunction).addName("someStringAbsent"),
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers)
+						.presentUsingAsync((Integer number) -> asyncServiceFunction.apply(String.valueOf(number)))
+						.addName("someNumbersPresent")
+		));
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("someString");
+		objectToValidate.setSomeNumbers(List.of(1, 2, 1));
+
+		CompletableFuture<ValidationResult<TestClass>> resultFuture = validator.validateAsync(objectToValidate);
+		assertEquals(4, pendingLookups.size());
+		assertFalse(resultFuture.isDone());
+		pendingLookups.forEach(pendingLookup -> pendingLookup.complete(Optional.of("found")));
+		ValidationResult<TestClass> result = resultFuture.join();
+		assertEquals(1, result.getViolations().size());
+		assertEquals("someStringAbsent", result.getViolations().get(0).getConstraintName());
+
+		pendingLookups.clear();
+		CompletableFuture<ValidationResult<TestClass>> failFastResultFuture =
+				validator.validateAsync(objectToValidate, EvaluationPolicy.failFast());
+		pendingLookups.forEach(pendingLookup -> pendingLookup.complete(Optional.empty()));
+		assertEquals(
+				List.of("idPresent"),
+				failFastResultFuture.join().getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+		);
+	}
+
+	@Test
+	void serviceResultsAreCachedPerValidation() {
+		List<String> lookedUpIds = new ArrayList<>();
+		Function<String, Optional<String>> findById = id -> {
+			lookedUpIds.add(id);
+			return Optional.of(id);
+		};
+		AbstractValidator<TestClass2> nestedValidator = validatorOf(() -> List.of(Constraint.forField(TestClass2::getId2).presentUsing(findById)));
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsing(findById),
+				Constraint.forField(TestClass::getSomeString).presentUsing(findById),
+				Constraint.forField(TestClass::getTestClass2).validWith(nestedValidator)
+		))
+				.withServiceResultCaching();
+		TestClass2 nestedObject = new TestClass2();
+		nestedObject.setId2("id");
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("otherId");
+		objectToValidate.setTestClass2(nestedObject);
+
+		assertTrue(validator.validateToResult(objectToValidate).isValid());
+		assertEquals(List.of("id", "otherId"), lookedUpIds);
+		lookedUpIds.clear();
+		validator.validate(objectToValidate);
+		assertEquals(List.of("id", "otherId"), lookedUpIds);
+		lookedUpIds.clear();
+		nestedValidator.validate(nestedObject);
+		nestedValidator.validate(nestedObject);
+		assertEquals(List.of("id", "id"), lookedUpIds);
+	}
+
+	@Test
+	void serviceCacheAnswersRepeatedLookupsUntilExpiration() {
+		AtomicLong now = new AtomicLong();
+		List<String> lookedUpIds = new ArrayList<>();
+		ServiceCache<String, Optional<String>> cache = ServiceCache.<String, Optional<String>>builder()
+				.maximumSize(100)
+				.expireAfterWrite(Duration.ofSeconds(10))
+				.expireNegativeResultsAfterWrite(Duration.ofSeconds(1))
+				.ticker(now::get)
+				.build();
+		Function<String, Optional<String>> findById = cache.decorate(id -> {
+			lookedUpIds.add(id);
+			return id.startsWith("existing") ? Optional.of(id) : Optional.empty();
+		});
+		Constraint<TestClass> idPresent = Constraint.forField(TestClass::getId).presentUsing(findById);
+		TestClass existingObject = new TestClass();
+		existingObject.setId("existing");
+		TestClass missingObject = new TestClass();
+		missingObject.setId("missing");
+
+		for(int i = 0; i < 3; i++) {
+			assertEquals("", idPresent.validateObject(existingObject));
+			assertFalse(idPresent.validateObject(missingObject).isEmpty());
+		}
+		assertEquals(List.of("existing", "missing"), lookedUpIds);
+		now.addAndGet(Duration.ofSeconds(2).toNanos());
+		idPresent.validateObject(existingObject);
+		idPresent.validateObject(missingObject);
+		assertEquals(List.of("existing", "missing", "missing"), lookedUpIds);
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		idPresent.validateObject(existingObject);
+		assertEquals(List.of("existing", "missing", "missing", "existing"), lookedUpIds);
+
+		ServiceCacheStatistics statistics = cache.getStatistics();
+		assertEquals(5, statistics.getHitCount());
+		assertEquals(4, statistics.getMissCount());
+		assertEquals(2, statistics.getExpirationCount());
+
+		ServiceCache<String, Optional<String>> singleEntryCache = ServiceCache.<String, Optional<String>>builder()
+				.maximumSize(1)
+				.build();
+		singleEntryCache.get("a", Optional::of);
+		singleEntryCache.get("b", Optional::of);
+		assertEquals(1, singleEntryCache.size());
+		assertEquals(1, singleEntryCache.getStatistics().getEvictionCount());
+
+		ServiceCache<Integer, Optional<Integer>> smallCache = ServiceCache.<Integer, Optional<Integer>>builder()
+				.maximumSize(100)
+				.build();
+		for(int key = 0; key < 100; key++) {
+			smallCache.get(key, Optional::of);
+		}
+		assertEquals(100, smallCache.size());
+		assertEquals(0, smallCache.getStatistics().getEvictionCount());
+		ServiceCache<Integer, Optional<Integer>> segmentedCache = ServiceCache.<Integer, Optional<Integer>>builder()
+				.maximumSize(1000)
+				.build();
+		for(int key = 0; key < 1000; key++) {
+			segmentedCache.get(key, Optional::of);
+		}
+		assertEquals(1000, segmentedCache.size());
+	}
+
+	@Test
+	void bloomFilterSkipsLookupsOfDefinitelyAbsentKeys() {
+		List<String> storedIds = new ArrayList<>();
+		for(int i = 0; i < 1000; i++) {
+			storedIds.add("stored" + i);
+		}
+		AtomicInteger lookupCount = new AtomicInteger();
+		BloomFilter<String> storedIdFilter = BloomFilter.of(storedIds, 0.01);
+		Constraint<TestClass> idAbsent = Constraint.forField(TestClass::getId)
+				.absentUsing(storedIdFilter.decorate((String id) -> {
+					lookupCount.incrementAndGet();
+					return storedIds.contains(id) ? Optional.of(id) : Optional.<String>empty();
+				}));
+		TestClass objectToValidate = new TestClass();
+
+		for(String storedId : storedIds) {
+			objectToValidate.setId(storedId);
+			assertFalse(idAbsent.validateObject(objectToValidate).isEmpty());
+		}
+		assertEquals(1000, lookupCount.get());
+		lookupCount.set(0);
+		for(int i = 0; i < 1000; i++) {
+			objectToValidate.setId("new" + i);
+			assertEquals("", idAbsent.validateObject(objectToValidate));
+		}
+		assertTrue(lookupCount.get() < 50);
+
+		lookupCount.set(0);
+		storedIds.add("written");
+		storedIdFilter.put("written");
+		objectToValidate.setId("written");
+		assertFalse(idAbsent.validateObject(objectToValidate).isEmpty());
+		assertEquals(1, lookupCount.get());
+	}
+
+	@Test
+	void slowServiceConstraintsResultInConfiguredTimeoutOutcome() {
+		CountDownLatch serviceRelease = new CountDownLatch(1);
+		Function<String, Optional<String>> slowFindById = id -> {
+			try {
+				serviceRelease.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Optional.of(id);
+		};
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).notNull().addName("idNotNull"),
+				Constraint.forField(TestClass::getId).presentUsing(slowFindById)
+						.withTimeout(Duration.ofMillis(50), FallbackOutcomeEnum.INDETERMINATE)
+						.addName("idPresent"),
+				Constraint.forField(TestClass::getSomeString).presentUsing(slowFindById).addName("someStringPresent")
+		));
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("someString");
+
+		try {
+			ValidationResult<TestClass> result = validator.validateToResult(objectToValidate,
+					EvaluationPolicy.evaluateAll().withDeadline(Duration.ofMillis(200), FallbackOutcomeEnum.VIOLATION));
+			assertEquals(
+					List.of(ViolationKindEnum.INDETERMINATE, ViolationKindEnum.TIMED_OUT),
+					result.getViolations().stream().map(ConstraintViolation::getViolationKind).collect(Collectors.toList())
+			);
+			assertFalse(result.isIndeterminate());
+			assertTrue(result.getMessage().startsWith("Constraint idPresent was violated [timeout: PT0.05S]"));
+
+			ValidationResult<TestClass> passingResult = validator.validateToResult(objectToValidate,
+					EvaluationPolicy.evaluateAll().withDeadline(Duration.ofMillis(200), FallbackOutcomeEnum.PASS));
+			assertTrue(passingResult.isIndeterminate());
+		} finally {
+			serviceRelease.countDown();
+		}
+	}
+
+	@Test
+	void timeLimitedConstraintsShareServiceResultsAndRunOnBoundedExecutors() {
+		List<Integer> batchCallSizes = new ArrayList<>();
+		AbstractValidator<TestClass> batchValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId)
+						.absentUsingBatch((Collection<String> ids) -> {
+							batchCallSizes.add(ids.size());
+							return Map.of();
+						})
+						.addName("idAbsent")
+		));
+		List<TestClass> objectsToValidate = new ArrayList<>();
+		for(int i = 0; i < 100; i++) {
+			TestClass objectToValidate = new TestClass();
+			objectToValidate.setId("id" + i);
+			objectsToValidate.add(objectToValidate);
+		}
+		List<ValidationResult<TestClass>> batchResults = batchValidator.validateAll(objectsToValidate,
+				EvaluationPolicy.evaluateAll().withDeadline(Duration.ofSeconds(10), FallbackOutcomeEnum.VIOLATION));
+		assertTrue(batchResults.stream().allMatch(ValidationResult::isValid));
+		assertEquals(List.of(100), batchCallSizes);
+
+		List<String> lookedUpIds = Collections.synchronizedList(new ArrayList<>());
+		Function<String, Optional<String>> findById = id -> {
+			lookedUpIds.add(id);
+			return Optional.of(id);
+		};
+		AbstractValidator<TestClass> cachingValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsing(findById)
+						.withTimeout(Duration.ofSeconds(10), FallbackOutcomeEnum.VIOLATION),
+				Constraint.forField(TestClass::getSomeString).presentUsing(findById)
+		))
+				.withServiceResultCaching();
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("id");
+		assertTrue(cachingValidator.validateToResult(objectToValidate,
+				EvaluationPolicy.evaluateAll().withDeadline(Duration.ofSeconds(10), FallbackOutcomeEnum.VIOLATION)).isValid());
+		assertEquals(List.of("id"), lookedUpIds);
+
+		CountDownLatch serviceRelease = new CountDownLatch(1);
+		AtomicInteger startedLookups = new AtomicInteger();
+		Function<String, Optional<String>> stuckFindById = id -> {
+			startedLookups.incrementAndGet();
+			boolean isInterrupted = false;
+			while(serviceRelease.getCount() > 0) {
+				try {
+					serviceRelease.await();
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+				}
+			}
+			if(isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return Optional.of(id);
+		};
+		ThreadPoolExecutor timeoutExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+		AbstractValidator<TestClass> stuckValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).presentUsing(stuckFindById)
+						.withTimeout(Duration.ofMillis(50), FallbackOutcomeEnum.INDETERMINATE, timeoutExecutor)
+		));
+		try {
+			assertTrue(stuckValidator.validateToResult(objectToValidate).isIndeterminate());
+			assertTrue(stuckValidator.validateToResult(objectToValidate).isIndeterminate());
+			assertEquals(1, startedLookups.get());
+			assertEquals(1, timeoutExecutor.getLargestPoolSize());
+		} finally {
+			serviceRelease.countDown();
+			timeoutExecutor.shutdown();
+		}
+	}
+
+	@Test
+	void circuitBreakerAndBulkheadProtectFailingServices() {
+		AtomicLong now = new AtomicLong();
+		AtomicInteger callCount = new AtomicInteger();
+		AtomicBoolean isServiceFailing = new AtomicBoolean(true);
+		CircuitBreaker circuitBreaker = CircuitBreaker.builder("repository")
+				.minimumCallCount(4)
+				.failureRateThreshold(0.5)
+				.openDuration(Duration.ofSeconds(30))
+				.halfOpenCallCount(1)
+				.ticker(now::get)
+				.build();
+		Function<String, Optional<String>> findById = circuitBreaker.decorate(id -> {
+			callCount.incrementAndGet();
+			if(isServiceFailing.get()) {
+				throw new IllegalStateException("Repository unavailable");
+			}
+			return Optional.of(id);
+		});
+		Constraint<TestClass> idPresent = Constraint.forField(TestClass::getId).presentUsing(findById)
+				.withFailureOutcome(FallbackOutcomeEnum.INDETERMINATE)
+				.addName("idPresent");
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(idPresent));
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+
+		for(int i = 0; i < 10; i++) {
+			ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+			assertTrue(result.isIndeterminate());
+		}
+		assertEquals(4, callCount.get());
+		assertEquals(CircuitStateEnum.OPEN, circuitBreaker.getState());
+		assertTrue(validator.validateToResult(objectToValidate).getViolations().get(0).getCause() instanceof ServiceUnavailableException);
+
+		now.addAndGet(Duration.ofSeconds(31).toNanos());
+		isServiceFailing.set(false);
+		assertTrue(validator.validateToResult(objectToValidate).isValid());
+		assertEquals(CircuitStateEnum.CLOSED, circuitBreaker.getState());
+
+		// a slow call permitted while closed completes after the breaker has opened and become half-open
+		CircuitBreaker trialCircuitBreaker = CircuitBreaker.builder("repository")
+				.minimumCallCount(2)
+				.openDuration(Duration.ofSeconds(30))
+				.halfOpenCallCount(2)
+				.ticker(now::get)
+				.build();
+		AtomicReference<Function<String, Optional<String>>> trialFindById = new AtomicReference<>();
+		trialFindById.set(trialCircuitBreaker.decorate(id -> {
+			if(id.equals("slow")) {
+				for(int i = 0; i < 2; i++) {
+					assertThrows(IllegalStateException.class, () -> trialFindById.get().apply("failing"));
+				}
+				assertEquals(CircuitStateEnum.OPEN, trialCircuitBreaker.getState());
+				now.addAndGet(Duration.ofSeconds(31).toNanos());
+				trialFindById.get().apply("trial");
+			} else if(id.equals("failing")) {
+				throw new IllegalStateException("Repository unavailable");
+			}
+			return Optional.of(id);
+		}));
+		trialFindById.get().apply("slow");
+		assertEquals(CircuitStateEnum.HALF_OPEN, trialCircuitBreaker.getState());
+		trialFindById.get().apply("trial");
+		assertEquals(CircuitStateEnum.CLOSED, trialCircuitBreaker.getState());
+
+		Bulkhead bulkhead = Bulkhead.of("repository", 1, Duration.ZERO);
+		AtomicReference<Function<String, Optional<String>>> bulkheadFindById = new AtomicReference<>();
+		bulkheadFindById.set(bulkhead.decorate(id -> id.isEmpty() ? Optional.of(id) : bulkheadFindById.get().apply("")));
+		assertThrows(ServiceUnavailableException.class, () -> bulkheadFindById.get().apply("id"));
+		assertEquals(1, bulkhead.getAvailableCallCount());
+	}
+
+}
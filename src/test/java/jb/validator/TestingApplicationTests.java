@@ -1,17 +1,38 @@
 package jb.validator;
 
+import jb.validator.constants.ViolationKindEnum;
+import jb.validator.exceptions.TestException;
 import jb.validator.exceptions.ValidatorException;
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.models.ConstraintBuilderField;
+import jb.validator.models.ConstraintBuilderFinalField;
+import jb.validator.models.ConstraintViolation;
+import jb.validator.models.EvaluationPolicy;
+import jb.validator.models.ValidationResult;
 import jb.validator.objects.RepoDummy;
 import jb.validator.objects.TestClass;
 import jb.validator.objects.TestClass2;
 import jb.validator.validators.TestValidator;
+import jb.validator.validators.TestValidator2;
+import com.sun.management.ThreadMXBean;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static jb.validator.validators.ConfigurableValidator.validatorOf;
 
 class TestingApplicationTests {
 
@@ -52,4 +73,402 @@ class TestingApplicationTests {
 		}
 	}
 
+	@Test
+	void constraintSupplierIsCompiledOnce() {
+		AtomicInteger supplierCalls = new AtomicInteger();
+		AbstractValidator<TestClass2> validator = validatorOf(() -> {
+			supplierCalls.incrementAndGet();
+			return List.of(Constraint.forField(TestClass2::getId2).notNull().addName("id2NotNull"));
+		});
+		TestClass2 objectToValidate = new TestClass2();
+		objectToValidate.setId2("id2");
+		validator.validate(objectToValidate);
+		validator.validate(objectToValidate);
+		objectToValidate.setId2(null);
+		assertThrows(ValidatorException.class, () -> validator.validate(objectToValidate));
+		assertEquals(1, supplierCalls.get());
+	}
+
+	@Test
+	void dynamicConstraintSupplierIsInvokedOnEveryValidation() {
+		AtomicInteger supplierCalls = new AtomicInteger();
+		AbstractValidator<TestClass2> validator = validatorOf(() -> {
+			supplierCalls.incrementAndGet();
+			return List.of(Constraint.forField(TestClass2::getId2).notNull().addName("id2NotNull"));
+		})
+				.withDynamicConstraintSet();
+		TestClass2 objectToValidate = new TestClass2();
+		objectToValidate.setId2("id2");
+		validator.validate(objectToValidate);
+		validator.validate(objectToValidate);
+		assertEquals(2, supplierCalls.get());
+	}
+
+	@Test
+	void validateToResultReportsViolationsWithoutThrowing() {
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		objectToValidate.setSomeString("jfghjkhfdgj");
+		objectToValidate.setSomeNumbers(List.of(1, 2, -10, 99, 11, 22));
+
+		TestValidator testValidator = new TestValidator();
+		ValidationResult<TestClass> result = testValidator.validateToResult(objectToValidate);
+		assertFalse(result.isValid());
+		assertEquals(
+				List.of("idLength", "noNegativeNumber", "idNotPresent"),
+				result.getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+		);
+		assertEquals(
+				List.of(ViolationKindEnum.BOUND_VIOLATED, ViolationKindEnum.BOUND_VIOLATED, ViolationKindEnum.DATA_PRESENT),
+				result.getViolations().stream().map(ConstraintViolation::getViolationKind).collect(Collectors.toList())
+		);
+		ValidatorException exception = assertThrows(ValidatorException.class, () -> testValidator.validate(objectToValidate));
+		assertTrue(exception.getMessage().endsWith(result.getMessage()));
+	}
+
+	@Test
+	void validateToResultReturnsSharedValidResult() {
+		TestClass2 objectToValidate = new TestClass2();
+		objectToValidate.setId2("id2");
+		ValidationResult<TestClass2> result = new TestValidator2().validateToResult(objectToValidate);
+		assertTrue(result.isValid());
+		assertTrue(result.getViolations().isEmpty());
+		assertSame(ValidationResult.valid(), result);
+	}
+
+	@Test
+	void violationMessagesAreRenderedFromCapturedValues() {
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		objectToValidate.setSomeString("jfghjkhfdgj");
+		objectToValidate.setSomeNumbers(List.of(1, 2, -10, 99, 11, 22));
+		assertEquals(
+				"Constraint idLength was violated [object: TestClass, field value: notNullId12323]: Target value must be smaller than or equal to 10 but was 14; "
+						+ "Constraint noNegativeNumber was violated [object: TestClass, collection: [1, 2, -10, 99, 11, 22]]: The target value of every item must be greater than or equal to 0; "
+						+ "Constraint idNotPresent was violated [object: TestClass, field value: jfghjkhfdgj]: Requested data object already exists",
+				new TestValidator().validateToResult(objectToValidate).getMessage()
+		);
+
+		AtomicInteger getterCalls = new AtomicInteger();
+		Constraint<TestClass2> constraint = Constraint.<TestClass2, String>forField(testClass2 -> {
+					getterCalls.incrementAndGet();
+					return testClass2.getId2();
+				})
+				.suchThatTarget(String::length).isLessThan(3).addName("id2Length");
+		TestClass2 testClass2 = new TestClass2();
+		testClass2.setId2("abcd");
+		String message = constraint.validateObject(testClass2);
+		assertEquals("Constraint id2Length was violated [object: TestClass2, field value: abcd]: Target value must be smaller than 3 but was 4", message);
+		assertEquals(1, getterCalls.get());
+	}
+
+	@Test
+	void exceptionCauseCarriesErrorMessage() {
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		ValidatorException exception = assertThrows(ValidatorException.class, () -> new TestValidator().validate(objectToValidate));
+		assertTrue(exception.getCause() instanceof TestException);
+		assertTrue(exception.getMessage().endsWith(exception.getCause().getMessage()));
+		assertTrue(exception.getStackTrace().length > 0);
+	}
+
+	@Test
+	void stacklessExceptionModeSharesCause() {
+		TestValidator stacklessValidator = new TestValidator() {
+			@Override
+			protected boolean isStacklessExceptionMode() {
+				return true;
+			}
+		};
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		ValidatorException first = assertThrows(ValidatorException.class, () -> stacklessValidator.validate(objectToValidate));
+		ValidatorException second = assertThrows(ValidatorException.class, () -> stacklessValidator.validate(objectToValidate));
+		assertEquals(0, first.getStackTrace().length);
+		assertTrue(first.getCause() instanceof TestException);
+		assertSame(first.getCause(), second.getCause());
+		assertTrue(first.getMessage().startsWith("(Associated with TestException) Constraint someNumbersNotNull was violated"));
+	}
+
+	@Test
+	void evaluationPoliciesStopAfterViolationLimit() {
+		AtomicInteger serviceCalls = new AtomicInteger();
+		AbstractValidator<TestClass> failFastValidator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).notNull().addName("idNotNull"),
+				Constraint.forField(TestClass::getSomeString).presentUsing(someString -> {
+					serviceCalls.incrementAndGet();
+					return Optional.empty();
+				}).addName("someStringPresent")
+		))
+				.withEvaluationPolicy(EvaluationPolicy.failFast());
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setSomeString("jfghjkhfdgj");
+		assertEquals(1, failFastValidator.validateToResult(objectToValidate).getViolations().size());
+		assertThrows(ValidatorException.class, () -> failFastValidator.validate(objectToValidate));
+		assertEquals(0, serviceCalls.get());
+		assertEquals(2, failFastValidator.validateToResult(objectToValidate, EvaluationPolicy.evaluateAll()).getViolations().size());
+		assertEquals(1, serviceCalls.get());
+
+		objectToValidate.setId("notNullId12323");
+		objectToValidate.setSomeNumbers(List.of(1, 2, -10, 99, 11, 22));
+		ValidationResult<TestClass> result = new TestValidator().validateToResult(objectToValidate, EvaluationPolicy.maxViolations(2));
+		assertEquals(
+				List.of("idLength", "noNegativeNumber"),
+				result.getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+		);
+		assertThrows(IllegalArgumentException.class, () -> EvaluationPolicy.maxViolations(0));
+	}
+
+	@Test
+	void cheapConstraintsAreExecutedFirst() {
+		AtomicInteger serviceCalls = new AtomicInteger();
+		TestValidator2 testValidator2 = new TestValidator2();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getSomeString).presentUsing(someString -> {
+					serviceCalls.incrementAndGet();
+					return Optional.empty();
+				}).addName("someStringPresent"),
+				Constraint.forField(TestClass::getTestClass2).noThrowsUsing(testValidator2::validate).addName("validateTestClass2"),
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers).notNull().addName("noNullNumbers"),
+				Constraint.forField(TestClass::getId).notNull().addName("idNotNull")
+		));
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setSomeString("jfghjkhfdgj");
+		assertEquals(
+				List.of("idNotNull"),
+				validator.validateToResult(objectToValidate, EvaluationPolicy.failFast()).getViolations().stream()
+						.map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+		);
+		assertEquals(0, serviceCalls.get());
+		assertEquals(
+				List.of("someStringPresent", "idNotNull"),
+				validator.validateToResult(objectToValidate).getViolations().stream()
+						.map(ConstraintViolation::getConstraintName).collect(Collectors.toList())
+		);
+		assertEquals(1, serviceCalls.get());
+	}
+
+	@Test
+	void adaptiveOrderingRunsFrequentlyFailingConstraintsFirst() {
+		AtomicInteger someStringGetterCalls = new AtomicInteger();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.<TestClass, String>forField(testClass -> {
+					someStringGetterCalls.incrementAndGet();
+					return testClass.getSomeString();
+				}).notNull().addName("someStringNotNull"),
+				Constraint.forField(TestClass::getId).suchThatTarget(String::length).isLessOrEqualThan(10).addName("idLength")
+		))
+				.withEvaluationPolicy(EvaluationPolicy.failFast())
+				.withAdaptiveOrdering();
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		objectToValidate.setSomeString("jfghjkhfdgj");
+		for(int i = 0; i < 20_000; i++) {
+			validator.validateToResult(objectToValidate);
+		}
+		int getterCallsAfterWarmUp = someStringGetterCalls.get();
+		for(int i = 0; i < 1_000; i++) {
+			assertEquals("idLength", validator.validateToResult(objectToValidate).getViolations().get(0).getConstraintName());
+		}
+		assertEquals(getterCallsAfterWarmUp, someStringGetterCalls.get());
+	}
+
+	@Test
+	void sharedGettersAreInvokedOncePerValidation() {
+		AtomicInteger idGetterCalls = new AtomicInteger();
+		AtomicInteger lengthGetterCalls = new AtomicInteger();
+		AbstractValidator<TestClass> validator = validatorOf(() -> {
+			ConstraintBuilderField<TestClass, String> id = Constraint.forField(testClass -> {
+				idGetterCalls.incrementAndGet();
+				return testClass.getId();
+			});
+			ConstraintBuilderFinalField<TestClass, String, Integer> idLength = id.suchThatTarget(idValue -> {
+				lengthGetterCalls.incrementAndGet();
+				return idValue.length();
+			});
+			return List.of(
+					id.notNull().addName("idNotNull"),
+					idLength.isGreaterThan(3).addName("idMinLength"),
+					idLength.isLessOrEqualThan(10).addName("idMaxLength"),
+					id.absentUsing(idValue -> Optional.empty()).addName("idNotPresent")
+			);
+		});
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("notNullId12323");
+		ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+		assertEquals(List.of("idMaxLength"), result.getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList()));
+		assertEquals(1, idGetterCalls.get());
+		assertEquals(1, lengthGetterCalls.get());
+		validator.validateToResult(objectToValidate);
+		assertEquals(2, idGetterCalls.get());
+		assertEquals(2, lengthGetterCalls.get());
+	}
+
+	@Test
+	void equalMethodReferencesShareGetterInvocations() {
+		AbstractValidator<CountingGetterObject> validator = validatorOf(() -> List.of(
+				Constraint.forField(CountingGetterObject::getId).notNull().addName("idNotNull"),
+				Constraint.forField(CountingGetterObject::getId).suchThatTarget(String::length).isGreaterThan(3).addName("idMinLength"),
+				Constraint.forField(CountingGetterObject::getId).suchThatTarget(String::length).isLessOrEqualThan(10).addName("idMaxLength")
+		));
+		CountingGetterObject objectToValidate = new CountingGetterObject("notNullId12323");
+		ValidationResult<CountingGetterObject> result = validator.validateToResult(objectToValidate);
+		assertEquals(List.of("idMaxLength"), result.getViolations().stream().map(ConstraintViolation::getConstraintName).collect(Collectors.toList()));
+		assertEquals(1, objectToValidate.getIdCalls());
+	}
+
+	@Test
+	void nestedValidatorsAreExecutedOnce() {
+		AtomicInteger nestedCalls = new AtomicInteger();
+		TestValidator2 testValidator2 = new TestValidator2();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getTestClass2).noThrowsUsing(testClass2 -> {
+					nestedCalls.incrementAndGet();
+					testValidator2.validate(testClass2);
+				}).addName("validateTestClass2"),
+				Constraint.forItemsInCollection(TestClass::getTestClass2Collection).noThrowsUsing(testClass2 -> {
+					nestedCalls.incrementAndGet();
+					testValidator2.validate(testClass2);
+				}).addName("validator2ForCollectionItems")
+		));
+		TestClass2 testClass2 = new TestClass2();
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setTestClass2(testClass2);
+		objectToValidate.setTestClass2Collection(List.of(testClass2, testClass2));
+		ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+		assertEquals(2, result.getViolations().size());
+		assertTrue(result.getMessage().contains("An unwanted exception occurred (jb.validator.exceptions.WrapperException: jb.validator.exceptions.ValidatorException"));
+		assertEquals(2, nestedCalls.get());
+		for(ConstraintViolation<TestClass> violation : result.getViolations()) {
+			assertEquals(ViolationKindEnum.EXCEPTION_THROWN, violation.getViolationKind());
+			assertTrue(violation.getCause() instanceof ValidatorException);
+		}
+		assertEquals(2, nestedCalls.get());
+	}
+
+	@Test
+	void validWithMergesNestedViolationsWithPaths() {
+		TestValidator2 testValidator2 = new TestValidator2();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getTestClass2).validWith(testValidator2).addName("validateTestClass2"),
+				Constraint.forItemsInCollection(TestClass::getTestClass2Collection).validWith(testValidator2).addName("validator2ForCollectionItems")
+		));
+		TestClass2 invalidTestClass2 = new TestClass2();
+		TestClass2 validTestClass2 = new TestClass2();
+		validTestClass2.setId2("id2");
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setTestClass2(invalidTestClass2);
+		objectToValidate.setTestClass2Collection(List.of(invalidTestClass2, validTestClass2, invalidTestClass2));
+
+		ValidationResult<TestClass> result = validator.validateToResult(objectToValidate);
+		assertEquals(2, result.getViolations().size());
+		assertEquals(ViolationKindEnum.NESTED_VIOLATED, result.getViolations().get(0).getViolationKind());
+		assertEquals(
+				List.of(
+						"validateTestClass2.id2NotNull",
+						"validator2ForCollectionItems[0].id2NotNull",
+						"validator2ForCollectionItems[2].id2NotNull"
+				),
+				result.getFlattenedViolations().stream().map(ConstraintViolation::getPath).collect(Collectors.toList())
+		);
+		assertTrue(result.getMessage().startsWith(
+				"Constraint validateTestClass2 was violated [object: TestClass, field value: " + invalidTestClass2
+						+ "]: Nested validation failed (Constraint id2NotNull was violated [object: TestClass2, field value: null]: Value of a required field was null)"
+		));
+
+		objectToValidate.setTestClass2(validTestClass2);
+		objectToValidate.setTestClass2Collection(List.of(validTestClass2));
+		assertTrue(validator.validateToResult(objectToValidate).isValid());
+	}
+
+	@Test
+	void validObjectsAreValidatedWithinAllocationBudget() {
+		// the budget relies on the C2 compiler eliminating the short-lived allocations of the valid path
+		assumeTrue(isEscapeAnalysisOfC2Effective(), "Requires a C2-compiling JVM without instrumenting agents");
+		ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+		threadMXBean.setThreadAllocatedMemoryEnabled(true);
+		TestValidator2 testValidator2 = new TestValidator2();
+		Optional<TestClass> absent = Optional.empty();
+		AbstractValidator<TestClass> validator = validatorOf(() -> List.of(
+				Constraint.forField(TestClass::getId).notNull().addName("idNotNull"),
+				Constraint.forField(TestClass::getId).suchThatTarget(String::length).isLessOrEqualThan(10).addName("idLength"),
+				Constraint.forField(TestClass::getSomeString).suchThatTarget(someString -> someString).isGreaterThan("a").addName("someStringAfterA"),
+				Constraint.forField(TestClass::getSomeNumbers).suchThatTarget(Collection::size).isGreaterOrEqualThan(1).addName("someNumbersNotEmpty"),
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers).notNull().addName("someNumbersNotNull"),
+				Constraint.forItemsInCollection(TestClass::getSomeNumbers).suchThatTarget(x -> x).isGreaterOrEqualThan(0).addName("noNegativeNumber"),
+				Constraint.forField(TestClass::getSomeString).absentUsing((String someString) -> absent).addName("someStringAbsent"),
+				Constraint.forField(TestClass::getTestClass2).noThrowsUsing(testValidator2::validate).addName("validateTestClass2"),
+				Constraint.forItemsInCollection(TestClass::getTestClass2Collection).noThrowsUsing(testValidator2::validate).addName("validator2ForCollectionItems")
+		)).throwing(TestException.class);
+		TestClass2 testClass2 = new TestClass2();
+		testClass2.setId2("id2");
+		TestClass objectToValidate = new TestClass();
+		objectToValidate.setId("id");
+		objectToValidate.setSomeString("someString");
+		objectToValidate.setSomeNumbers(List.of(1, 2, 3, 1000, 2000));
+		objectToValidate.setTestClass2(testClass2);
+		objectToValidate.setTestClass2Collection(List.of(testClass2, testClass2));
+
+		assertTrue(validator.validateToResult(objectToValidate).isValid());
+		// warm up, so the measurement is not distorted by class loading and compilation
+		for(int i = 0; i < 50_000; i++) {
+			validator.validate(objectToValidate);
+		}
+		int validationCount = 10_000;
+		long threadId = Thread.currentThread().getId();
+		long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+		for(int i = 0; i < validationCount; i++) {
+			validator.validate(objectToValidate);
+		}
+		long allocatedBytesPerValidation = (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore) / validationCount;
+		assertTrue(allocatedBytesPerValidation <= 16, String.format(
+				"Valid path allocated %s bytes per validation after 50000 warm-up validations, which should have let C2 compile "
+						+ "the valid path and eliminate its temporary allocations by escape analysis",
+				allocatedBytesPerValidation));
+	}
+
+	/**
+	 * @return true if the JVM compiles hot code with C2 and escape analysis, and no agent instruments the code.
+	 */
+	private static boolean isEscapeAnalysisOfC2Effective() {
+		String vmName = System.getProperty("java.vm.name", "");
+		String vmInfo = System.getProperty("java.vm.info", "");
+		if(!vmName.contains("Server VM") || vmInfo.contains("interpreted mode")) {
+			return false;
+		}
+		for(String inputArgument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if(inputArgument.equals("-Xint")
+					|| inputArgument.startsWith("-javaagent")
+					|| inputArgument.startsWith("-agentlib")
+					|| inputArgument.startsWith("-agentpath")
+					|| inputArgument.startsWith("-XX:TieredStopAtLevel=") && !inputArgument.endsWith("=4")
+					|| inputArgument.equals("-XX:-DoEscapeAnalysis")
+					|| inputArgument.equals("-XX:-UseCompiler")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static final class CountingGetterObject {
+
+		private final String id;
+		private int idCalls;
+
+		CountingGetterObject(String id) {
+			this.id = id;
+		}
+
+		public String getId() {
+			idCalls++;
+			return id;
+		}
+
+		int getIdCalls() {
+			return idCalls;
+		}
+
+	}
+
 }
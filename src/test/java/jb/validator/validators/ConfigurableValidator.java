@@ -0,0 +1,93 @@
+package jb.validator.validators;
+
+import jb.validator.models.AbstractValidator;
+import jb.validator.models.Constraint;
+import jb.validator.models.EvaluationPolicy;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Validator whose constraints and settings are given by the test using it, instead of a dedicated subclass per test.
+ * Settings must be configured before the first validation.
+ */
+public class ConfigurableValidator<T> extends AbstractValidator<T> {
+
+    private final Supplier<? extends Collection<Constraint<T>>> constraintSupplier;
+
+    private Class<? extends Throwable> exceptionType;
+    private boolean isConstraintSetStatic = true;
+    private EvaluationPolicy evaluationPolicy = EvaluationPolicy.evaluateAll();
+    private boolean isAdaptiveOrderingEnabled;
+    private boolean isServiceResultCachingEnabled;
+
+    private ConfigurableValidator(Supplier<? extends Collection<Constraint<T>>> constraintSupplier) {
+        this.constraintSupplier = constraintSupplier;
+    }
+
+    /**
+     * @return a validator of the constraints returned by the given supplier, throwing ValidatorExceptions without cause.
+     */
+    public static <T> ConfigurableValidator<T> validatorOf(Supplier<? extends Collection<Constraint<T>>> constraintSupplier) {
+        return new ConfigurableValidator<>(constraintSupplier);
+    }
+
+    public ConfigurableValidator<T> throwing(Class<? extends Throwable> exceptionType) {
+        this.exceptionType = exceptionType;
+        return this;
+    }
+
+    /**
+     * Invokes the constraint supplier on every validation (see isConstraintSetStatic).
+     */
+    public ConfigurableValidator<T> withDynamicConstraintSet() {
+        this.isConstraintSetStatic = false;
+        return this;
+    }
+
+    public ConfigurableValidator<T> withEvaluationPolicy(EvaluationPolicy evaluationPolicy) {
+        this.evaluationPolicy = evaluationPolicy;
+        return this;
+    }
+
+    public ConfigurableValidator<T> withAdaptiveOrdering() {
+        this.isAdaptiveOrderingEnabled = true;
+        return this;
+    }
+
+    public ConfigurableValidator<T> withServiceResultCaching() {
+        this.isServiceResultCachingEnabled = true;
+        return this;
+    }
+
+    @Override
+    public Collection<Constraint<T>> constraintSupplier() {
+        return constraintSupplier.get();
+    }
+
+    @Override
+    public Class<? extends Throwable> exceptionSupplier() {
+        return exceptionType;
+    }
+
+    @Override
+    protected boolean isConstraintSetStatic() {
+        return isConstraintSetStatic;
+    }
+
+    @Override
+    protected EvaluationPolicy evaluationPolicySupplier() {
+        return evaluationPolicy;
+    }
+
+    @Override
+    protected boolean isAdaptiveOrderingEnabled() {
+        return isAdaptiveOrderingEnabled;
+    }
+
+    @Override
+    protected boolean isServiceResultCachingEnabled() {
+        return isServiceResultCachingEnabled;
+    }
+
+}